@@ -0,0 +1,129 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Generates the synthetic inputs of the benchmarks in temporary directories.
+ */
+public class BenchmarkData {
+
+    public static final String CONTENT_PATTERN = "<version>(?P<VERSION>.+?)</version>";
+
+    private static final String FILLER = "    <dependency><groupId>org.example</groupId>"
+            + "<artifactId>filler</artifactId><scope>test</scope></dependency>\n";
+
+    private BenchmarkData() {
+    }
+
+    public static File createTempDir(String prefix) throws IOException {
+        File dir = File.createTempFile("variables-extractor-" + prefix, "");
+        if (!dir.delete() || !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        return dir;
+    }
+
+    /**
+     * Writes about <code>size</code> bytes of XML-like text. The only version tag is in the
+     * middle of the file, so that the first match is not found immediately.
+     */
+    public static void writeText(File file, long size) throws IOException {
+        Writer out = newWriter(file, "UTF-8");
+        try {
+            long written = 0;
+            boolean versionWritten = false;
+            while (written < size) {
+                if (!versionWritten && written >= size / 2) {
+                    String version = "<version>1.2.3-SNAPSHOT</version>\n";
+                    out.write(version);
+                    written += version.length();
+                    versionWritten = true;
+                }
+                out.write(FILLER);
+                written += FILLER.length();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes <code>count</code> properties named <code>KEY_0</code> to
+     * <code>KEY_&lt;count - 1&gt;</code>.
+     */
+    public static void writeProperties(File file, int count) throws IOException {
+        Writer out = newWriter(file, "ISO-8859-1");
+        try {
+            out.write("# generated\n");
+            for (int i = 0; i < count; i++) {
+                out.write("KEY_" + i + " = value of the key number " + i + "\n");
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Creates <code>count</code> empty files spread over sub-directories of 1000 files, plus
+     * <code>target/app-1.0.jar</code>.
+     */
+    public static void createTree(File dir, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            File subDir = new File(dir, "dir" + (i / 1000));
+            if (i % 1000 == 0 && !subDir.mkdirs()) {
+                throw new IOException("Cannot create " + subDir);
+            }
+            if (!new File(subDir, "file" + i + ".txt").createNewFile()) {
+                throw new IOException("Cannot create file " + i + " in " + subDir);
+            }
+        }
+        File target = new File(dir, "target");
+        if (!target.mkdirs() || !new File(target, "app-1.0.jar").createNewFile()) {
+            throw new IOException("Cannot create " + target);
+        }
+    }
+
+    public static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static Writer newWriter(File file, String charset) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), charset));
+    }
+
+}
@@ -0,0 +1,102 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.MatchMode;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PatternCache;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.RegExpSpec;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.RegexEngine;
+
+/**
+ * Matching of a whole text with the backtracking engine and with the linear engine.
+ * 
+ * In the "pom" layout, the default content pattern is searched. In the "unclosed" layout, each
+ * opening tag without closing tag makes the lazy <code>.+?</code> scan the rest of the text. In
+ * the "nested" layout, the pattern has a nested quantifier and the tags are not closed either:
+ * each one costs the backtracking engine a time exponential in the length of the tag value
+ * (unless the JVM memoizes the loop positions, as the recent ones do).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EngineBenchmark {
+
+    private static final String NESTED_PATTERN = "<version>(?P<VERSION>(\\w+\\.?)+)</version>";
+
+    @Param({ "65536", "1048576" })
+    public int size;
+
+    @Param({ "pom", "unclosed", "nested" })
+    public String layout;
+
+    @Param({ "JAVA", "LINEAR" })
+    public String engine;
+
+    private RegExpSpec spec;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        boolean nested = "nested".equals(layout);
+        spec = new RegExpSpec(nested ? NESTED_PATTERN : BenchmarkData.CONTENT_PATTERN,
+                PatternCache.flags(false, true, false, true), MatchMode.ALL,
+                RegexEngine.fromString(engine));
+        String tag = "pom".equals(layout) ? "<version>1.2.3</version>\n" : nested
+                ? "<version>abcdefghijklmnopqrst\n" : "<version>\n";
+        StringBuilder builder = new StringBuilder(size);
+        int line = 0;
+        while (builder.length() < size) {
+            builder.append("    <dependency><artifactId>filler</artifactId></dependency>\n");
+            if (++line % 1000 == 0) {
+                builder.append(tag);
+            }
+        }
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public Map<String, String> match() {
+        return spec.match(text);
+    }
+
+}
@@ -0,0 +1,91 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.benchmarks;
+
+import hudson.FilePath;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.FileFinder;
+
+/**
+ * Search of the file matched by the file name extractor, compared to
+ * {@link FilePath#list(String)} (the previous implementation). The tree is created once per
+ * trial: with 1M entries, this takes a while.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FileNameBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int entries;
+
+    @Param({ "target/app-*.jar", "**/app-*.jar" })
+    public String glob;
+
+    private File dir;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = BenchmarkData.createTempDir("tree");
+        BenchmarkData.createTree(dir, entries);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public List<File> fileFinder() throws IOException {
+        return new FileFinder(glob, 2).find(dir);
+    }
+
+    @Benchmark
+    public FilePath[] filePathList() throws IOException, InterruptedException {
+        return new FilePath(dir).list(glob);
+    }
+
+}
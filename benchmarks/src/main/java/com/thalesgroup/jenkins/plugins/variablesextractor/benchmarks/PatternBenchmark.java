@@ -0,0 +1,100 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.code.regexp.NamedPattern;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.MatchCollector;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.MatchMode;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PatternCache;
+
+/**
+ * Compilation of named patterns, with and without {@link PatternCache}, and matching of an
+ * in-memory text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PatternBenchmark {
+
+    @Param({ "1024", "65536", "1048576" })
+    public int size;
+
+    private int flags;
+    private NamedPattern pattern;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        flags = PatternCache.flags(false, true, false, true);
+        pattern = NamedPattern.compile(BenchmarkData.CONTENT_PATTERN, flags);
+        StringBuilder builder = new StringBuilder(size);
+        while (builder.length() < size) {
+            builder.append("    <dependency><artifactId>filler</artifactId></dependency>\n");
+            if (builder.length() >= size / 2 && builder.indexOf("<version>") < 0) {
+                builder.append("<version>1.2.3</version>\n");
+            }
+        }
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public NamedPattern compile() {
+        return NamedPattern.compile(BenchmarkData.CONTENT_PATTERN, flags);
+    }
+
+    @Benchmark
+    public NamedPattern compileCached() {
+        return PatternCache.compile(BenchmarkData.CONTENT_PATTERN, flags);
+    }
+
+    @Benchmark
+    public Map<String, String> matchFirst() {
+        return new MatchCollector(MatchMode.FIRST).collect(pattern.matcher(text));
+    }
+
+    @Benchmark
+    public Map<String, String> matchAll() {
+        return new MatchCollector(MatchMode.ALL).collect(pattern.matcher(text));
+    }
+
+}
@@ -0,0 +1,123 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.NameFilter;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PropertiesReader;
+
+/**
+ * Reading of properties files, compared to {@link Properties#load(InputStream)} followed by a
+ * filter (the previous implementation).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PropertiesBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int keys;
+
+    /** comma separated restricted names, empty for all */
+    @Param({ "", "KEY_5", "KEY_1*" })
+    public String restrictedNames;
+
+    private File dir;
+    private File file;
+    private List<String> names;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = BenchmarkData.createTempDir("properties");
+        file = new File(dir, "benchmark.properties");
+        BenchmarkData.writeProperties(file, keys);
+        names = restrictedNames.length() > 0 ? Arrays.asList(restrictedNames.split(","))
+                : Collections.<String> emptyList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public Map<String, String> propertiesReader() throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), "ISO-8859-1");
+        try {
+            return new PropertiesReader(new NameFilter(names)).read(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> javaUtilProperties() throws IOException {
+        InputStream is = new FileInputStream(file);
+        Properties properties = new Properties();
+        try {
+            properties.load(is);
+        } finally {
+            is.close();
+        }
+        NameFilter filter = new NameFilter(names);
+        Map<String, String> vars = new LinkedHashMap<String, String>();
+        for (String name : properties.stringPropertyNames()) {
+            if (filter.accepts(name)) {
+                vars.put(name, properties.getProperty(name));
+            }
+        }
+        return vars;
+    }
+
+}
@@ -0,0 +1,104 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
+
+import hudson.FilePath;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.benchmarks.BenchmarkData;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.MatchMode;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PatternCache;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.RegExpSpec;
+
+/**
+ * Read loop of the file content extractors, through a local {@link FilePath} as on an agent.
+ * In the same package as {@link ContentMatchCallable} which is not public.
+ * 
+ * Files bigger than the default sizes can be selected with <code>-p size=...</code>; the
+ * non-streaming mode needs a heap of about twice the file size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class FileContentBenchmark {
+
+    @Param({ "1024", "1048576", "104857600" })
+    public long size;
+
+    @Param({ "false", "true" })
+    public boolean streaming;
+
+    @Param({ "FIRST", "ALL" })
+    public String matchMode;
+
+    private File dir;
+    private FilePath file;
+    private ContentMatchCallable callable;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = BenchmarkData.createTempDir("content");
+        File content = new File(dir, "content.xml");
+        BenchmarkData.writeText(content, size);
+        file = new FilePath(content);
+        RegExpSpec spec = new RegExpSpec(BenchmarkData.CONTENT_PATTERN, PatternCache.flags(
+                false, true, false, true), MatchMode.valueOf(matchMode));
+        callable = new ContentMatchCallable(Collections.singletonList(spec), streaming,
+                "UTF-8");
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> match() throws IOException, InterruptedException {
+        return file.act(callable);
+    }
+
+}
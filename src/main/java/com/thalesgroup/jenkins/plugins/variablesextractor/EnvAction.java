@@ -1,40 +1,108 @@
-package com.thalesgroup.jenkins.plugins.variablesextractor;
-
-import hudson.EnvVars;
-import hudson.model.EnvironmentContributingAction;
-import hudson.model.AbstractBuild;
-
-import java.util.Map;
-
-import org.kohsuke.stapler.StaplerProxy;
-
-public class EnvAction implements EnvironmentContributingAction, StaplerProxy {
-
-    private Map<String, String> vars;
-    
-    public EnvAction(Map<String, String> vars) {
-        super();
-        this.vars = vars;
-    }
-
-    public String getIconFileName() {
-        return "/plugin/variables-extractor/icons/extractor.png";
-    }
-
-    public String getDisplayName() {
-        return "Extracted Variables";
-    }
-
-    public String getUrlName() {
-        return "extractedvariables";
-    }
-    
-
-    public void buildEnvVars(AbstractBuild<?, ?> build, EnvVars env) {
-        env.putAll(this.vars);
-    }
-
-    public Object getTarget() {
-        return new ExtractedVariablesList(vars);
-    }
-}
+package com.thalesgroup.jenkins.plugins.variablesextractor;
+
+import hudson.EnvVars;
+import hudson.model.EnvironmentContributingAction;
+import hudson.model.AbstractBuild;
+
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kohsuke.stapler.StaplerProxy;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionMetrics;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.VariablesCodec;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.VariablesMap;
+
+public class EnvAction implements EnvironmentContributingAction, StaplerProxy {
+
+    /** only set when loading a build.xml written before {@link #variables} was introduced */
+    private Map<String, String> vars;
+    /** encoded with {@link VariablesCodec} */
+    private String variables;
+    /** decoded variables, only loaded when needed and released under memory pressure */
+    private transient volatile SoftReference<VariablesMap> decoded;
+    /** number of times the variables were contributed to the build environment */
+    private transient AtomicInteger buildEnvVarsCalls = new AtomicInteger();
+    /** null for the builds made before metrics were recorded */
+    private List<ExtractionMetrics> metrics;
+    
+    public EnvAction(Map<String, String> vars) {
+        this(vars, null);
+    }
+
+    public EnvAction(Map<String, String> vars, List<ExtractionMetrics> metrics) {
+        super();
+        VariablesMap map = VariablesMap.copyOf(vars);
+        this.variables = VariablesCodec.encode(map);
+        this.decoded = new SoftReference<VariablesMap>(map);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Converts the builds of older versions to the compact form, which is written the next time
+     * the build is saved.
+     */
+    protected Object readResolve() {
+        if (vars != null) {
+            variables = VariablesCodec.encode(vars);
+            vars = null;
+        }
+        buildEnvVarsCalls = new AtomicInteger();
+        return this;
+    }
+
+    public String getIconFileName() {
+        return "/plugin/variables-extractor/icons/extractor.png";
+    }
+
+    public String getDisplayName() {
+        return "Extracted Variables";
+    }
+
+    public String getUrlName() {
+        return "extractedvariables";
+    }
+    
+
+    public void buildEnvVars(AbstractBuild<?, ?> build, EnvVars env) {
+        buildEnvVarsCalls.incrementAndGet();
+        env.putAll(getVariables());
+    }
+
+    public Object getTarget() {
+        return new ExtractedVariablesList(getVariables(), getMetrics(),
+                getBuildEnvVarsCalls());
+    }
+
+    /**
+     * @return the variables, decoded on first access. The same immutable instance is shared by
+     *         all the callers.
+     */
+    public Map<String, String> getVariables() {
+        SoftReference<VariablesMap> reference = decoded;
+        VariablesMap map = reference != null ? reference.get() : null;
+        if (map == null) {
+            map = variables != null ? VariablesCodec.decode(variables) : VariablesMap.EMPTY;
+            decoded = new SoftReference<VariablesMap>(map);
+        }
+        return map;
+    }
+
+    /**
+     * @return the number of times {@link #buildEnvVars(AbstractBuild, EnvVars)} was called
+     *         since the build was started or loaded.
+     */
+    public int getBuildEnvVarsCalls() {
+        return buildEnvVarsCalls.get();
+    }
+
+    public List<ExtractionMetrics> getMetrics() {
+        if (metrics == null) {
+            return Collections.emptyList();
+        }
+        return metrics;
+    }
+}
@@ -1,40 +1,115 @@
-package com.thalesgroup.jenkins.plugins.variablesextractor;
-
-import hudson.model.Api;
-
-import java.io.IOException;
-import java.io.Serializable;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
-
-import org.kohsuke.stapler.StaplerRequest;
-import org.kohsuke.stapler.StaplerResponse;
-
-public class ExtractedVariablesList implements Serializable {
-
-    private static final long serialVersionUID = 689591903988355965L;
-
-    private Map<String, String> variables;
-    
-    public Set<Entry<String,String>> getVariables() {
-        return variables.entrySet();
-    }
-
-    public ExtractedVariablesList(Map<String, String> vars) {
-        super();
-        this.variables = vars;
-    }
-
-    public Object getDynamic(final String link, final StaplerRequest request,
-            final StaplerResponse response) throws IOException
-    {
-        response.sendRedirect2("index");
-        return null;
-    }
-
-    public Api getApi() {
-        return new Api(this);
-    }
-
-}
+package com.thalesgroup.jenkins.plugins.variablesextractor;
+
+import hudson.model.AbstractBuild;
+import hudson.model.Api;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionMetrics;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.VariablesListing;
+
+@ExportedBean
+public class ExtractedVariablesList implements Serializable {
+
+    private static final long serialVersionUID = 689591903988355965L;
+
+    private Map<String, String> variables;
+    private List<ExtractionMetrics> metrics;
+    private int buildEnvVarsCalls;
+    
+    public Set<Entry<String,String>> getVariables() {
+        return variables.entrySet();
+    }
+
+    @Exported(name = "variables")
+    public Map<String, String> getVariableMap() {
+        return variables;
+    }
+
+    /**
+     * @return the metrics of each extractor, in configuration order.
+     */
+    @Exported(inline = true)
+    public List<ExtractionMetrics> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the number of times the variables were contributed to the build environment.
+     */
+    @Exported
+    public int getBuildEnvVarsCalls() {
+        return buildEnvVarsCalls;
+    }
+
+    public ExtractedVariablesList(Map<String, String> vars) {
+        this(vars, Collections.<ExtractionMetrics> emptyList(), 0);
+    }
+
+    public ExtractedVariablesList(Map<String, String> vars, List<ExtractionMetrics> metrics,
+            int buildEnvVarsCalls)
+    {
+        super();
+        this.variables = vars;
+        this.metrics = metrics;
+        this.buildEnvVarsCalls = buildEnvVarsCalls;
+    }
+
+    /**
+     * Sends the full listing of the variables as plain text. It is read from the build directory
+     * when the variables were summarized in the build log, and generated otherwise.
+     */
+    public void doListing(StaplerRequest request, StaplerResponse response) throws IOException {
+        response.setContentType("text/plain;charset=UTF-8");
+        PrintWriter writer = response.getWriter();
+        AbstractBuild<?, ?> build = request.findAncestorObject(AbstractBuild.class);
+        File file = build != null ? VariablesListing.getFile(build.getRootDir()) : null;
+        if (file != null && file.isFile()) {
+            Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                    "UTF-8"));
+            try {
+                char[] buffer = new char[8192];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    writer.write(buffer, 0, read);
+                }
+            } finally {
+                reader.close();
+            }
+        } else {
+            for (String line : VariablesListing.lines(variables)) {
+                writer.println(line);
+            }
+        }
+        writer.flush();
+    }
+
+    public Object getDynamic(final String link, final StaplerRequest request,
+            final StaplerResponse response) throws IOException
+    {
+        response.sendRedirect2("index");
+        return null;
+    }
+
+    public Api getApi() {
+        return new Api(this);
+    }
+
+}
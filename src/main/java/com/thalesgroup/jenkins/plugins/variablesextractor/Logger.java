@@ -1,17 +1,31 @@
-package com.thalesgroup.jenkins.plugins.variablesextractor;
-
-import java.io.PrintStream;
-
-public class Logger {
-    
-    private PrintStream stream;
-
-    public Logger(PrintStream stream) {
-        this.stream = stream;
-    }
-    
-    public void log(Object obj) {
-        stream.println("[variables-extractor] " + obj.toString());
-    }
-    
-}
+package com.thalesgroup.jenkins.plugins.variablesextractor;
+
+import java.io.PrintStream;
+import java.util.List;
+
+public class Logger {
+    
+    private PrintStream stream;
+
+    public Logger(PrintStream stream) {
+        this.stream = stream;
+    }
+    
+    public void log(Object obj) {
+        stream.println("[variables-extractor] " + obj.toString());
+    }
+
+    /**
+     * Writes all the lines with a single call, so that they are not interleaved with the output
+     * of other threads and large listings do not cost one remote call per line.
+     */
+    public void log(List<String> lines) {
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            builder.append("[variables-extractor] ").append(line).append('\n');
+        }
+        stream.print(builder.toString());
+        stream.flush();
+    }
+    
+}
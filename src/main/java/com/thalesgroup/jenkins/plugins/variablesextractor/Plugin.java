@@ -1,142 +1,465 @@
-/************************************************************************************
- * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
- * Author: Robin Jarry                                                              *
- *                                                                                  *
- * The MIT License                                                                  *
- *                                                                                  *
- * Permission is hereby granted, free of charge, to any person obtaining a copy     *
- * of this software and associated documentation files (the "Software"), to deal    *
- * in the Software without restriction, including without limitation the rights     *
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
- * copies of the Software, and to permit persons to whom the Software is            *
- * furnished to do so, subject to the following conditions:                         *
- *                                                                                  *
- * The above copyright notice and this permission notice shall be included in       *
- * all copies or substantial portions of the Software.                              *
- *                                                                                  *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
- * THE SOFTWARE.                                                                    *
- ************************************************************************************/
-package com.thalesgroup.jenkins.plugins.variablesextractor;
-
-import hudson.Extension;
-import hudson.Launcher;
-import hudson.model.BuildListener;
-import hudson.model.AbstractBuild;
-import hudson.model.AbstractProject;
-import hudson.model.Hudson;
-import hudson.tasks.BuildWrapper;
-import hudson.tasks.BuildWrapperDescriptor;
-
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-
-import net.sf.json.JSONArray;
-import net.sf.json.JSONException;
-import net.sf.json.JSONObject;
-
-import org.kohsuke.stapler.DataBoundConstructor;
-import org.kohsuke.stapler.StaplerRequest;
-
-import com.thalesgroup.jenkins.plugins.variablesextractor.extractors.Extractor;
-
-public class Plugin extends BuildWrapper {
-
-    private final List<Extractor> extractors;
-
-    @Extension
-    public static final DescriptorImpl DESCRIPTOR = new DescriptorImpl();
-
-    @DataBoundConstructor
-    public Plugin(List<Extractor> extractors) {
-        this.extractors = extractors;
-    }
-
-    public Plugin(Extractor... extractors) {
-        this.extractors = Arrays.asList(extractors);
-    }
-
-    public DescriptorImpl getDescriptor() {
-        return DESCRIPTOR;
-    }
-
-    @Override
-    public Environment setUp(@SuppressWarnings("rawtypes") AbstractBuild build, Launcher launcher,
-            BuildListener listener) throws IOException, InterruptedException
-    {
-        Logger logger = new Logger(listener.getLogger());
-        Map<String, String> vars = new HashMap<String, String>();
-
-        for (Extractor extractor : this.extractors) {
-            vars.putAll(extractor.extractVariables(build, listener));
-        }
-
-        if (vars.size() > 0) {
-            EnvAction action = new EnvAction(vars);
-            build.addAction(action);
-        }
-        
-        logger.log("Extracted variables:");
-        for (Entry<String, String> entry : vars.entrySet()) {
-            logger.log(entry.getKey() + " = " + entry.getValue());
-        }
-        
-        return new Environment() {};
-    }
-
-    public List<Extractor> getExtractors() {
-        return extractors;
-    }
-
-    public static class DescriptorImpl extends BuildWrapperDescriptor {
-
-        public DescriptorImpl() {
-            super(Plugin.class);
-            load();
-        }
-
-        @Override
-        public String getDisplayName() {
-            return "Variables Extractor";
-        }
-
-        @Override
-        public BuildWrapper newInstance(StaplerRequest req, JSONObject formData)
-                throws FormException
-        {
-            List<Extractor> extractors = new ArrayList<Extractor>();
-            if (formData.containsKey("extractorDefinitions")) {
-                try {
-                    JSONObject jsonObj = formData.getJSONObject("extractorDefinitions");
-                    Extractor def = req.bindJSON(Extractor.class, jsonObj);
-                    extractors.add(def);
-                } catch (JSONException e) {
-                    JSONArray array = formData.getJSONArray("extractorDefinitions");
-                    extractors.addAll(req.bindJSONToList(Extractor.class, array));
-                }
-            }
-            return new Plugin(extractors);
-        }
-
-        public List<Extractor.Descriptor> getExtractorDescriptors() {
-            return Hudson.getInstance().getDescriptorList(Extractor.class);
-        }
-
-        @Override
-        public boolean isApplicable(AbstractProject<?, ?> item) {
-            return true;
-        }
-
-    }
-
-}
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor;
+
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.BuildListener;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Hudson;
+import hudson.tasks.BuildWrapper;
+import hudson.tasks.BuildWrapperDescriptor;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.ListBoxModel;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.StaplerRequest;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.extractors.AbstractFileContentExtractor;
+import com.thalesgroup.jenkins.plugins.variablesextractor.extractors.ExtractionContext;
+import com.thalesgroup.jenkins.plugins.variablesextractor.extractors.Extractor;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.CacheMode;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionException;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionMetrics;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionStatistics;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.LogMode;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.VariablesListing;
+
+public class Plugin extends BuildWrapper {
+
+    /** maximum number of extractors running at the same time in parallel mode (all builds) */
+    public static final int MAX_THREADS = Integer.getInteger(Plugin.class.getName()
+            + ".maxThreads", 8);
+
+    /** maximum number of variables written to the build log in summary mode */
+    public static final int MAX_LOGGED_VARIABLES = Integer.getInteger(Plugin.class.getName()
+            + ".maxLoggedVariables", 50);
+
+    /** values longer than this are truncated in the build log in summary mode */
+    public static final int MAX_LOGGED_VALUE_LENGTH = Integer.getInteger(Plugin.class.getName()
+            + ".maxLoggedValueLength", 200);
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private final List<Extractor> extractors;
+    private final boolean parallel;
+    private final String cacheMode;
+    private final String logMode;
+
+    @Extension
+    public static final DescriptorImpl DESCRIPTOR = new DescriptorImpl();
+
+    @DataBoundConstructor
+    public Plugin(List<Extractor> extractors, boolean parallel, String cacheMode,
+            String logMode)
+    {
+        this.extractors = extractors;
+        this.parallel = parallel;
+        this.cacheMode = cacheMode;
+        this.logMode = logMode;
+    }
+
+    public Plugin(List<Extractor> extractors, boolean parallel, String cacheMode) {
+        this(extractors, parallel, cacheMode, null);
+    }
+
+    public Plugin(List<Extractor> extractors, boolean parallel) {
+        this(extractors, parallel, null);
+    }
+
+    public Plugin(List<Extractor> extractors) {
+        this(extractors, false);
+    }
+
+    public Plugin(Extractor... extractors) {
+        this(Arrays.asList(extractors), false);
+    }
+
+    public DescriptorImpl getDescriptor() {
+        return DESCRIPTOR;
+    }
+
+    @Override
+    public Environment setUp(@SuppressWarnings("rawtypes") AbstractBuild build, Launcher launcher,
+            BuildListener listener) throws IOException, InterruptedException
+    {
+        ExtractionContext context = ExtractionContext.create(build, listener,
+                CacheMode.fromString(cacheMode));
+        Logger logger = context.getLogger();
+        Map<String, String> vars = new HashMap<String, String>();
+
+        if (parallel) {
+            /* results are merged in configuration order so that later extractors still win,
+             * but extractors only see the variables of the build environment */
+            for (Map<String, String> extracted : extractInParallel(context)) {
+                vars.putAll(extracted);
+            }
+        } else {
+            int index = 0;
+            while (index < this.extractors.size()) {
+                List<Extractor> group = nextGroup(index, context);
+                for (Map<String, String> extracted : extract(group, context)) {
+                    context.addVariables(extracted);
+                    vars.putAll(extracted);
+                }
+                index += group.size();
+            }
+        }
+
+        context.saveCache();
+
+        List<ExtractionMetrics> metrics = new ArrayList<ExtractionMetrics>();
+        for (Extractor extractor : this.extractors) {
+            metrics.add(context.getMetrics(extractor));
+        }
+        final EnvAction action;
+        if (vars.size() > 0 || metrics.size() > 0) {
+            action = new EnvAction(vars, metrics);
+            build.addAction(action);
+        } else {
+            action = null;
+        }
+
+        logVariables(build, logger, vars);
+
+        return new Environment() {
+            @Override
+            public boolean tearDown(@SuppressWarnings("rawtypes") AbstractBuild build,
+                    BuildListener listener) throws IOException, InterruptedException
+            {
+                if (action != null) {
+                    new Logger(listener.getLogger()).log(action.getVariables().size()
+                            + " variable(s) contributed " + action.getBuildEnvVarsCalls()
+                            + " time(s) to the build environment");
+                }
+                return true;
+            }
+        };
+    }
+
+    public List<Extractor> getExtractors() {
+        return extractors;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public String getCacheMode() {
+        return cacheMode;
+    }
+
+    public String getLogMode() {
+        return logMode;
+    }
+
+    /**
+     * Writes the variables to the build log in a single call. In summary mode, only the first
+     * ones are written and the full listing is stored in the build directory, where the
+     * Extracted Variables page reads it on demand.
+     */
+    private void logVariables(AbstractBuild<?, ?> build, Logger logger,
+            Map<String, String> vars)
+    {
+        switch (LogMode.fromString(logMode)) {
+        case SUMMARY:
+            try {
+                VariablesListing.write(build.getRootDir(), vars);
+            } catch (IOException e) {
+                logger.log("<WARNING> Cannot write the listing of the variables: "
+                        + e.getMessage());
+            }
+            logger.log(vars.size() + " variable(s) extracted"
+                    + (vars.size() > MAX_LOGGED_VARIABLES ? ", first " + MAX_LOGGED_VARIABLES
+                            + " listed below (full listing on the Extracted Variables page)"
+                            : "") + ":");
+            logger.log(VariablesListing.summary(vars, MAX_LOGGED_VARIABLES,
+                    MAX_LOGGED_VALUE_LENGTH));
+            break;
+        case COUNT:
+            logger.log(vars.size() + " variable(s) extracted");
+            break;
+        default:
+            logger.log("Extracted variables:");
+            logger.log(VariablesListing.lines(vars));
+            break;
+        }
+    }
+
+    /**
+     * Runs a group of extractors which share a single read of the same file (or a single
+     * extractor).
+     */
+    private static List<Map<String, String>> extract(List<Extractor> group,
+            ExtractionContext context) throws ExtractionException, InterruptedException
+    {
+        long start = System.currentTimeMillis();
+        List<Map<String, String>> results;
+        try {
+            if (group.size() > 1) {
+                List<AbstractFileContentExtractor> contentExtractors =
+                        new ArrayList<AbstractFileContentExtractor>();
+                for (Extractor extractor : group) {
+                    contentExtractors.add((AbstractFileContentExtractor) extractor);
+                }
+                results = AbstractFileContentExtractor.extractAll(contentExtractors, context);
+            } else {
+                results = Collections.singletonList(group.get(0).extractVariables(context));
+            }
+        } catch (ExtractionException e) {
+            record(group, context, System.currentTimeMillis() - start, true);
+            throw e;
+        } catch (InterruptedException e) {
+            record(group, context, System.currentTimeMillis() - start, true);
+            throw e;
+        } catch (RuntimeException e) {
+            record(group, context, System.currentTimeMillis() - start, true);
+            throw e;
+        }
+        long duration = System.currentTimeMillis() - start;
+        for (int i = 0; i < group.size(); i++) {
+            context.getMetrics(group.get(i)).setVariables(results.get(i).size());
+            context.getLogger().log(group.get(i).getDescriptor().getDisplayName() + ": "
+                    + results.get(i).size() + " variable(s) extracted in " + duration + " ms"
+                    + (group.size() > 1 ? " (shared read)" : ""));
+        }
+        record(group, context, duration, false);
+        return results;
+    }
+
+    /**
+     * Sets the duration of the extractors and adds their run to the global statistics.
+     */
+    private static void record(List<Extractor> group, ExtractionContext context,
+            long duration, boolean failed)
+    {
+        List<ExtractionMetrics> metrics = new ArrayList<ExtractionMetrics>();
+        for (Extractor extractor : group) {
+            ExtractionMetrics extractorMetrics = context.getMetrics(extractor);
+            extractorMetrics.setDuration(duration);
+            metrics.add(extractorMetrics);
+        }
+        DESCRIPTOR.getStatistics().record(context.getBuild().getProject().getFullName(),
+                metrics, failed);
+    }
+
+    /**
+     * Returns the extractors starting at <code>from</code> which can share a single read. Only
+     * consecutive extractors which do not reference each other's variables are grouped, so that
+     * the result is the same as running them one by one.
+     */
+    private List<Extractor> nextGroup(int from, ExtractionContext context) {
+        List<Extractor> group = new ArrayList<Extractor>();
+        group.add(this.extractors.get(from));
+        if (this.extractors.get(from) instanceof AbstractFileContentExtractor) {
+            List<AbstractFileContentExtractor> previous =
+                    new ArrayList<AbstractFileContentExtractor>();
+            previous.add((AbstractFileContentExtractor) this.extractors.get(from));
+            for (int i = from + 1; i < this.extractors.size(); i++) {
+                Extractor extractor = this.extractors.get(i);
+                if (!(extractor instanceof AbstractFileContentExtractor)
+                        || !((AbstractFileContentExtractor) extractor).canShareRead(previous,
+                                context, true))
+                {
+                    break;
+                }
+                previous.add((AbstractFileContentExtractor) extractor);
+                group.add(extractor);
+            }
+        }
+        return group;
+    }
+
+    /**
+     * In parallel mode, extractors do not see each other's variables, so all the extractors
+     * pointing to the same file can share a single read.
+     */
+    private List<List<Integer>> parallelGroups(ExtractionContext context) {
+        List<List<Integer>> groups = new ArrayList<List<Integer>>();
+        for (int i = 0; i < this.extractors.size(); i++) {
+            Extractor extractor = this.extractors.get(i);
+            List<Integer> target = null;
+            if (extractor instanceof AbstractFileContentExtractor) {
+                for (List<Integer> group : groups) {
+                    List<AbstractFileContentExtractor> previous =
+                            new ArrayList<AbstractFileContentExtractor>();
+                    for (int index : group) {
+                        if (this.extractors.get(index) instanceof AbstractFileContentExtractor) {
+                            previous.add((AbstractFileContentExtractor) this.extractors.get(index));
+                        }
+                    }
+                    if (previous.size() == group.size()
+                            && ((AbstractFileContentExtractor) extractor).canShareRead(previous,
+                                    context, false))
+                    {
+                        target = group;
+                        break;
+                    }
+                }
+            }
+            if (target == null) {
+                target = new ArrayList<Integer>();
+                groups.add(target);
+            }
+            target.add(i);
+        }
+        return groups;
+    }
+
+    private List<Map<String, String>> extractInParallel(final ExtractionContext context)
+            throws IOException, InterruptedException
+    {
+        List<List<Integer>> groups = parallelGroups(context);
+        List<Future<List<Map<String, String>>>> futures =
+                new ArrayList<Future<List<Map<String, String>>>>();
+        for (List<Integer> indexes : groups) {
+            final List<Extractor> group = new ArrayList<Extractor>();
+            for (int index : indexes) {
+                group.add(this.extractors.get(index));
+            }
+            futures.add(EXECUTOR.submit(new Callable<List<Map<String, String>>>() {
+                public List<Map<String, String>> call() throws Exception {
+                    return extract(group, context);
+                }
+            }));
+        }
+
+        Map<Integer, Map<String, String>> results = new TreeMap<Integer, Map<String, String>>();
+        try {
+            for (int i = 0; i < groups.size(); i++) {
+                List<Map<String, String>> extracted = futures.get(i).get();
+                for (int j = 0; j < extracted.size(); j++) {
+                    results.put(groups.get(i).get(j), extracted.get(j));
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InterruptedException) {
+                throw (InterruptedException) e.getCause();
+            } else if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new ExtractionException(e.getCause());
+        } finally {
+            for (Future<List<Map<String, String>>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return new ArrayList<Map<String, String>>(results.values());
+    }
+
+    private static ExecutorService createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60L,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static class DescriptorImpl extends BuildWrapperDescriptor {
+
+        /** in memory only, since Jenkins started */
+        private final transient ExtractionStatistics statistics = new ExtractionStatistics();
+
+        public DescriptorImpl() {
+            super(Plugin.class);
+            load();
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Variables Extractor";
+        }
+
+        @Override
+        public BuildWrapper newInstance(StaplerRequest req, JSONObject formData)
+                throws FormException
+        {
+            List<Extractor> extractors = new ArrayList<Extractor>();
+            if (formData.containsKey("extractorDefinitions")) {
+                try {
+                    JSONObject jsonObj = formData.getJSONObject("extractorDefinitions");
+                    Extractor def = req.bindJSON(Extractor.class, jsonObj);
+                    extractors.add(def);
+                } catch (JSONException e) {
+                    JSONArray array = formData.getJSONArray("extractorDefinitions");
+                    extractors.addAll(req.bindJSONToList(Extractor.class, array));
+                }
+            }
+            return new Plugin(extractors, formData.optBoolean("parallel"),
+                    formData.optString("cacheMode"), formData.optString("logMode"));
+        }
+
+        public ExtractionStatistics getStatistics() {
+            return statistics;
+        }
+
+        public ListBoxModel doFillCacheModeItems() {
+            ListBoxModel items = new ListBoxModel();
+            for (CacheMode mode : CacheMode.values()) {
+                items.add(mode.getDisplayName(), mode.name());
+            }
+            return items;
+        }
+
+        public ListBoxModel doFillLogModeItems() {
+            ListBoxModel items = new ListBoxModel();
+            for (LogMode mode : LogMode.values()) {
+                items.add(mode.getDisplayName(), mode.name());
+            }
+            return items;
+        }
+
+        public List<Extractor.Descriptor> getExtractorDescriptors() {
+            return Hudson.getInstance().getDescriptorList(Extractor.class);
+        }
+
+        @Override
+        public boolean isApplicable(AbstractProject<?, ?> item) {
+            return true;
+        }
+
+    }
+
+}
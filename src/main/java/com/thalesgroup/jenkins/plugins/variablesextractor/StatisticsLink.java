@@ -0,0 +1,101 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor;
+
+import hudson.Extension;
+import hudson.model.Api;
+import hudson.model.Hudson;
+import hudson.model.ManagementLink;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionStatistics;
+
+/**
+ * Shows the extraction statistics of all jobs in "Manage Jenkins". The statistics are also
+ * available through the remote API and as CSV (<code>csv</code>).
+ */
+@Extension
+public class StatisticsLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "/plugin/variables-extractor/icons/extractor.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Variables Extractor Statistics";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Latency, throughput and failures of the variables extractors across all jobs.";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "variables-extractor";
+    }
+
+    public ExtractionStatistics getStatistics() {
+        return Plugin.DESCRIPTOR.getStatistics();
+    }
+
+    public long[] getLatencyBuckets() {
+        return ExtractionStatistics.LATENCY_BUCKETS;
+    }
+
+    public Api getApi() {
+        Hudson.getInstance().checkPermission(Hudson.ADMINISTER);
+        return new Api(getStatistics());
+    }
+
+    public void doCsv(StaplerRequest request, StaplerResponse response) throws IOException {
+        Hudson.getInstance().checkPermission(Hudson.ADMINISTER);
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=variables-extractor.csv");
+        PrintWriter out = response.getWriter();
+        getStatistics().writeCsv(out);
+        out.flush();
+    }
+
+    public void doReset(StaplerRequest request, StaplerResponse response) throws IOException {
+        Hudson.getInstance().checkPermission(Hudson.ADMINISTER);
+        if (!"POST".equals(request.getMethod())) {
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        getStatistics().reset();
+        response.sendRedirect2(".");
+    }
+
+}
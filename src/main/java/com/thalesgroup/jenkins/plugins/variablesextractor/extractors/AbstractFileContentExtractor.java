@@ -0,0 +1,218 @@
+package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
+
+import hudson.FilePath;
+import hudson.Util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.Logger;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ArchiveEntry;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionException;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionMetrics;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.RegExpSpec;
+
+/**
+ * Base class for the extractors matching regular expressions against the content of a file.
+ * 
+ * Several of these extractors pointing to the same file can be served by a single read of that
+ * file, see {@link #extractAll(List, ExtractionContext)}.
+ */
+public abstract class AbstractFileContentExtractor extends Extractor {
+
+    private static final long serialVersionUID = -3046416522745208471L;
+
+    private static final Pattern GROUP_NAME = Pattern.compile("\\(\\?P<(\\w+)>");
+
+    /************
+     * ABSTRACT *
+     ************/
+
+    public abstract String getFile();
+
+    public abstract boolean isStreaming();
+
+    /**
+     * @return the charset of the file, empty or null for the default charset of the node.
+     */
+    public abstract String getCharset();
+
+    /**
+     * @return the patterns as configured, before variable expansion.
+     */
+    protected abstract List<String> getConfiguredPatterns();
+
+    /**
+     * @return the patterns to match, expanded against the context.
+     */
+    protected abstract List<RegExpSpec> resolvePatterns(ExtractionContext context);
+
+    /************
+     * OVERRIDE *
+     ************/
+
+    @Override
+    public Map<String, String> extractVariables(ExtractionContext context)
+            throws ExtractionException
+    {
+        List<AbstractFileContentExtractor> self = Collections.singletonList(this);
+        return extractAll(self, context).get(0);
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * Reads the file shared by <code>extractors</code> once and returns the variables extracted
+     * by each of them, in the same order.
+     */
+    public static List<Map<String, String>> extractAll(
+            List<? extends AbstractFileContentExtractor> extractors, ExtractionContext context)
+            throws ExtractionException
+    {
+        AbstractFileContentExtractor first = extractors.get(0);
+        String resolvedFile = context.expand(first.getFile());
+        ArchiveEntry entry = ArchiveEntry.parse(resolvedFile);
+        FilePath filePath = context.resolvePath(entry != null ? entry.getArchive()
+                : resolvedFile);
+
+        List<RegExpSpec> specs = new ArrayList<RegExpSpec>();
+        List<Integer> counts = new ArrayList<Integer>();
+        for (AbstractFileContentExtractor extractor : extractors) {
+            List<RegExpSpec> resolved = extractor.resolvePatterns(context);
+            specs.addAll(resolved);
+            counts.add(resolved.size());
+        }
+
+        String charset = first.getResolvedCharset();
+
+        try {
+            Logger logger = context.getLogger();
+            logger.log("Extracting variables from file content: " + resolvedFile);
+            if (extractors.size() > 1) {
+                logger.log("File read once for " + extractors.size() + " extractors");
+            }
+
+            StringBuilder key = new StringBuilder("content:").append(filePath.getRemote());
+            key.append(entry != null ? ArchiveEntry.SEPARATOR + entry.getName() : "");
+            key.append(first.isStreaming() ? ":streaming" : "");
+            key.append(':').append(charset);
+            for (RegExpSpec spec : specs) {
+                key.append('\n').append(spec);
+            }
+            List<Map<String, String>> results = context.act(filePath, key.toString(),
+                    new ContentMatchCallable(specs, first.isStreaming(),
+                            charset, entry), extractors);
+
+            List<Map<String, String>> vars = new ArrayList<Map<String, String>>();
+            int index = 0;
+            for (int e = 0; e < extractors.size(); e++) {
+                int count = counts.get(e);
+                int matches = 0;
+                Map<String, String> extracted = new LinkedHashMap<String, String>();
+                for (int i = index; i < index + count; i++) {
+                    matches += ExtractionMetrics.countMatches(results.get(i), specs.get(i)
+                            .getMode());
+                    if (results.get(i) != null) {
+                        extracted.putAll(results.get(i));
+                    } else {
+                        logger.log("<WARNING> No match in file content for pattern: "
+                                + specs.get(i).getPattern());
+                    }
+                }
+                ExtractionMetrics metrics = context.getMetrics(extractors.get(e));
+                metrics.setMatches(matches);
+                metrics.setSharedRead(extractors.size() > 1);
+                vars.add(extracted);
+                index += count;
+            }
+            return vars;
+        } catch (InterruptedException e) {
+            throw new ExtractionException("Error reading file: " + resolvedFile, e);
+        } catch (IOException e) {
+            throw new ExtractionException("Error reading file: " + resolvedFile, e);
+        } catch (PatternSyntaxException e) {
+            throw new ExtractionException("Invalid regexp pattern: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tells whether this extractor can be served by the same read as <code>previous</code>
+     * (which run before it): both must point to the same file and this extractor must not
+     * reference any variable produced by <code>previous</code>.
+     */
+    public boolean canShareRead(List<AbstractFileContentExtractor> previous,
+            ExtractionContext context, boolean checkReferences)
+    {
+        AbstractFileContentExtractor first = previous.get(0);
+        if (first.isStreaming() != isStreaming()
+                || !context.expand(first.getFile()).equals(context.expand(getFile())))
+        {
+            return false;
+        }
+        try {
+            if (!String.valueOf(first.getResolvedCharset()).equals(
+                    String.valueOf(getResolvedCharset())))
+            {
+                return false;
+            }
+        } catch (ExtractionException e) {
+            /* reported when extracting */
+            return false;
+        }
+        if (checkReferences) {
+            Set<String> names = new HashSet<String>();
+            for (AbstractFileContentExtractor extractor : previous) {
+                names.addAll(extractor.getGroupNames());
+            }
+            List<String> configured = new ArrayList<String>(getConfiguredPatterns());
+            configured.add(getFile());
+            for (String value : configured) {
+                for (String name : names) {
+                    if (value != null && (value.contains("$" + name)
+                            || value.contains("${" + name)))
+                    {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the canonical name of the configured charset, or null for the default one.
+     * @throws ExtractionException
+     *             if the charset is not supported by the master.
+     */
+    protected String getResolvedCharset() throws ExtractionException {
+        return resolveCharset(Util.fixEmptyAndTrim(getCharset()), null);
+    }
+
+    /**
+     * @return the names of the groups declared by the configured patterns.
+     */
+    public Set<String> getGroupNames() {
+        Set<String> names = new HashSet<String>();
+        for (String pattern : getConfiguredPatterns()) {
+            if (pattern != null) {
+                Matcher matcher = GROUP_NAME.matcher(pattern);
+                while (matcher.find()) {
+                    names.add(matcher.group(1));
+                }
+            }
+        }
+        return names;
+    }
+
+}
@@ -0,0 +1,113 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
+
+import hudson.FilePath.FileCallable;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.FileFingerprint;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PatternCache;
+
+/**
+ * Wraps an extraction callable so that the fingerprint of the file is computed in the same
+ * round trip, and the extraction is skipped if it matches the one of the previous build (if
+ * any). The pattern cache lookups of the extraction are sent back with its result since the
+ * cache of the node is not visible from the master.
+ */
+class CachingCallable<T> implements FileCallable<CachingCallable.Result<T>> {
+
+    private static final long serialVersionUID = -1292581306823906135L;
+
+    private final FileCallable<T> delegate;
+    private final FileFingerprint previous;
+    private final boolean withDigest;
+
+    public CachingCallable(FileCallable<T> delegate, FileFingerprint previous, boolean withDigest)
+    {
+        this.delegate = delegate;
+        this.previous = previous;
+        this.withDigest = withDigest;
+    }
+
+    public Result<T> invoke(File f, VirtualChannel channel) throws IOException,
+            InterruptedException
+    {
+        FileFingerprint fingerprint = FileFingerprint.of(f, withDigest);
+        if (fingerprint != null && fingerprint.equals(previous)) {
+            return new Result<T>(fingerprint, null, true);
+        }
+        long[] before = PatternCache.getThreadLookups();
+        Result<T> result = new Result<T>(fingerprint, delegate.invoke(f, channel), false);
+        long[] after = PatternCache.getThreadLookups();
+        result.patternCacheHits = after[0] - before[0];
+        result.patternCacheMisses = after[1] - before[1];
+        return result;
+    }
+
+    /**
+     * The fingerprint of the file, and the extracted value unless the file is unchanged.
+     */
+    static class Result<T> implements Serializable {
+
+        private static final long serialVersionUID = 4128934005611227937L;
+
+        private final FileFingerprint fingerprint;
+        private final T value;
+        private final boolean unchanged;
+        private long patternCacheHits;
+        private long patternCacheMisses;
+
+        public Result(FileFingerprint fingerprint, T value, boolean unchanged) {
+            this.fingerprint = fingerprint;
+            this.value = value;
+            this.unchanged = unchanged;
+        }
+
+        public FileFingerprint getFingerprint() {
+            return fingerprint;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public boolean isUnchanged() {
+            return unchanged;
+        }
+
+        public long getPatternCacheHits() {
+            return patternCacheHits;
+        }
+
+        public long getPatternCacheMisses() {
+            return patternCacheMisses;
+        }
+    }
+
+}
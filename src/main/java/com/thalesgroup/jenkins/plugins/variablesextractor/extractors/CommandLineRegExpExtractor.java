@@ -1,231 +1,393 @@
-/************************************************************************************
- * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
- * Author: Robin Jarry                                                              *
- *                                                                                  *
- * The MIT License                                                                  *
- *                                                                                  *
- * Permission is hereby granted, free of charge, to any person obtaining a copy     *
- * of this software and associated documentation files (the "Software"), to deal    *
- * in the Software without restriction, including without limitation the rights     *
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
- * copies of the Software, and to permit persons to whom the Software is            *
- * furnished to do so, subject to the following conditions:                         *
- *                                                                                  *
- * The above copyright notice and this permission notice shall be included in       *
- * all copies or substantial portions of the Software.                              *
- *                                                                                  *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
- * THE SOFTWARE.                                                                    *
- ************************************************************************************/
-package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
-
-import hudson.EnvVars;
-import hudson.Extension;
-import hudson.FilePath;
-import hudson.Launcher;
-import hudson.Launcher.ProcStarter;
-import hudson.Util;
-import hudson.model.TaskListener;
-import hudson.model.AbstractBuild;
-import hudson.model.Executor;
-import hudson.util.ArgumentListBuilder;
-
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.regex.Pattern;
-
-import org.kohsuke.stapler.DataBoundConstructor;
-
-import com.google.code.regexp.NamedMatcher;
-import com.google.code.regexp.NamedPattern;
-import com.thalesgroup.jenkins.plugins.variablesextractor.Logger;
-import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionException;
-
-public class CommandLineRegExpExtractor extends Extractor {
-
-    private static final long serialVersionUID = -3590627915663936671L;
-
-    /**********
-     * FIELDS *
-     **********/
-    @Extension
-    public static final DescriptorImpl DESCRIPTOR = new DescriptorImpl();
-
-    private final String command;
-    private final String pattern;
-    private final String workdir;
-    private final boolean ignoreCase;
-    private final boolean comments;
-    private final boolean multiline;
-    private final boolean dotall;
-
-    /***************
-     * CONSTRUCTOR *
-     ***************/
-
-    @DataBoundConstructor
-    public CommandLineRegExpExtractor(String command, String pattern, String workdir,
-            boolean ignoreCase, boolean comments, boolean multiline, boolean dotall)
-    {
-        super();
-        this.command = command;
-        this.pattern = pattern;
-        this.workdir = Util.fixEmptyAndTrim(workdir);
-        this.ignoreCase = ignoreCase;
-        this.comments = comments;
-        this.multiline = multiline;
-        this.dotall = dotall;
-    }
-
-    /************
-     * OVERRIDE *
-     ************/
-
-    @Override
-    public Map<String, String> extractVariables(AbstractBuild<?, ?> build, TaskListener listener)
-            throws ExtractionException
-    {
-        FilePath workspace = build.getWorkspace();
-        EnvVars environment;
-        try {
-            environment = build.getEnvironment(listener);
-        } catch (Exception e1) {
-            throw new ExtractionException(e1);
-        }
-
-        int flags = 0;
-        if (ignoreCase) flags |= Pattern.CASE_INSENSITIVE;
-        if (comments) flags |= Pattern.COMMENTS;
-        if (multiline) flags |= Pattern.MULTILINE;
-        if (dotall) flags |= Pattern.DOTALL;
-        
-        String resolvedCommand = environment.expand(this.command);
-        String resolvedPattern = environment.expand(this.pattern);
-        String resolvedWorkdir = environment.expand(this.workdir);
-
-        FilePath filePath;
-        if (resolvedWorkdir == null) {
-            filePath = workspace;
-        } else if (new File(resolvedWorkdir).isAbsolute()) {
-            filePath = new FilePath(workspace.getChannel(), resolvedWorkdir);
-        } else {
-            filePath = workspace.child(resolvedWorkdir);
-        }
-        
-        Launcher launcher = Executor.currentExecutor().getOwner().getNode()
-                .createLauncher(TaskListener.NULL);
-
-        ArgumentListBuilder args = new ArgumentListBuilder();
-        args.addTokenized(resolvedCommand);
-
-        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-        ProcStarter starter = launcher.launch();
-        starter.cmds(args);
-        starter.envs(environment);
-        starter.stdout(outStream);
-        starter.pwd(filePath);
-
-        try {
-            Logger logger = new Logger(listener.getLogger());
-            int code = launcher.launch(starter).join();
-            String commandOutput = outStream.toString();
-            logger.log("Extracting variables from command output: " + resolvedCommand);
-            if (resolvedWorkdir != null) {
-                logger.log("Executed from working directory: " + resolvedWorkdir);
-            }
-            listener.getLogger().println(commandOutput);
-            if (code != 0) {
-                throw new RuntimeException("Error during command execution");
-            }
-            NamedPattern compiledPattern = NamedPattern.compile(resolvedPattern, flags);
-            NamedMatcher matcher = compiledPattern.matcher(commandOutput);
-
-            if (matcher.find()) {
-                return matcher.namedGroups();
-            } else {
-                logger.log("<WARNING> No match in command output for pattern: " + resolvedPattern);
-                return new LinkedHashMap<String, String>();
-            }
-        } catch (Exception e) {
-            throw new ExtractionException(e);
-        }
-    }
-
-    public hudson.model.Descriptor<Extractor> getDescriptor() {
-        return DESCRIPTOR;
-    }
-
-    /***********
-     * GETTERS *
-     ***********/
-
-    public String getCommand() {
-        return command;
-    }
-
-    public String getPattern() {
-        return pattern;
-    }
-
-    public String getWorkdir() {
-		return workdir;
-	}
-
-	public boolean isIgnoreCase() {
-        return ignoreCase;
-    }
-
-    public boolean isComments() {
-        return comments;
-    }
-
-    public boolean isMultiline() {
-        return multiline;
-    }
-
-    public boolean isDotall() {
-        return dotall;
-    }
-
-    /**************
-     * DESCRIPTOR *
-     **************/
-
-    public static class DescriptorImpl extends Extractor.Descriptor {
-
-        private static final long serialVersionUID = 7281953615989321037L;
-        public static final boolean DEFAULT_IGNORE_CASE = false;
-        public static final boolean DEFAULT_COMMENTS = true;
-        public static final boolean DEFAULT_MULTILINE = false;
-        public static final boolean DEFAULT_DOTALL = true;
-
-        @Override
-        public String getDisplayName() {
-            return "Command Line Regular Expression Extractor";
-        }
-
-        public boolean isDefaultIgnoreCase() {
-            return DEFAULT_IGNORE_CASE;
-        }
-
-        public boolean isDefaultComments() {
-            return DEFAULT_COMMENTS;
-        }
-
-        public boolean isDefaultMultiline() {
-            return DEFAULT_MULTILINE;
-        }
-
-        public boolean isDefaultDotall() {
-            return DEFAULT_DOTALL;
-        }
-    }
-
-}
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Launcher.ProcStarter;
+import hudson.Proc;
+import hudson.Util;
+import hudson.model.Node;
+import hudson.util.ArgumentListBuilder;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.Logger;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionException;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionMetrics;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.MatchCollector;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.MatchMode;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.MatchingOutputStream;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.CompiledPattern;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PatternCache;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.RegexEngine;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.StreamingMatcher;
+
+public class CommandLineRegExpExtractor extends Extractor {
+
+    private static final long serialVersionUID = -3590627915663936671L;
+
+    /** delay between two checks of the command state while it runs */
+    private static final long POLL_INTERVAL = 100;
+
+    /**********
+     * FIELDS *
+     **********/
+    @Extension
+    public static final DescriptorImpl DESCRIPTOR = new DescriptorImpl();
+
+    private final String command;
+    private final String pattern;
+    private final String workdir;
+    private final boolean ignoreCase;
+    private final boolean comments;
+    private final boolean multiline;
+    private final boolean dotall;
+    private final String matchMode;
+    private final boolean terminateOnMatch;
+    private final int timeout;
+    private final long maxOutputSize;
+    private final String engine;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    @DataBoundConstructor
+    public CommandLineRegExpExtractor(String command, String pattern, String workdir,
+            boolean ignoreCase, boolean comments, boolean multiline, boolean dotall,
+            String matchMode, boolean terminateOnMatch, int timeout, long maxOutputSize,
+            String engine)
+    {
+        super();
+        this.command = command;
+        this.pattern = pattern;
+        this.workdir = Util.fixEmptyAndTrim(workdir);
+        this.ignoreCase = ignoreCase;
+        this.comments = comments;
+        this.multiline = multiline;
+        this.dotall = dotall;
+        this.matchMode = matchMode;
+        this.terminateOnMatch = terminateOnMatch;
+        this.timeout = timeout;
+        this.maxOutputSize = maxOutputSize;
+        this.engine = engine;
+    }
+
+    /************
+     * OVERRIDE *
+     ************/
+
+    @Override
+    public Map<String, String> extractVariables(ExtractionContext context)
+            throws ExtractionException, InterruptedException
+    {
+        int flags = PatternCache.flags(ignoreCase, comments, multiline, dotall);
+
+        String resolvedCommand = context.expand(this.command);
+        String resolvedPattern = context.expand(this.pattern);
+        String resolvedWorkdir = context.expand(this.workdir);
+
+        FilePath filePath = context.resolvePath(resolvedWorkdir);
+
+        ArgumentListBuilder args = new ArgumentListBuilder();
+        args.addTokenized(resolvedCommand);
+
+        try {
+            Logger logger = context.getLogger();
+            logger.log("Extracting variables from command output: " + resolvedCommand);
+            if (resolvedWorkdir != null) {
+                logger.log("Executed from working directory: " + resolvedWorkdir);
+            }
+            Node node = context.getBuild().getBuiltOn();
+            if (node == null) {
+                throw new ExtractionException("The node of the build is no longer available");
+            }
+            CompiledPattern compiledPattern = RegexEngine.fromString(engine).compile(
+                    resolvedPattern, flags);
+            MatchCollector collector = new MatchCollector(MatchMode.fromString(matchMode));
+            MatchingOutputStream outStream = new MatchingOutputStream(context.getListener()
+                    .getLogger(), new StreamingMatcher(compiledPattern,
+                    StreamingMatcher.DEFAULT_WINDOW_SIZE, collector), Charset.defaultCharset(),
+                    Math.max(0, maxOutputSize));
+
+            Launcher launcher = node.createLauncher(context.getListener());
+            ProcStarter starter = launcher.launch();
+            starter.cmds(args);
+            starter.envs(new EnvVars(context.getEnvironment()));
+            starter.stdout(outStream);
+            starter.pwd(filePath);
+            run(starter, outStream, logger);
+
+            Map<String, String> groups = collector.getVariables();
+            ExtractionMetrics metrics = context.getMetrics(this);
+            metrics.setBytes(outStream.getByteCount());
+            metrics.setMatches(ExtractionMetrics.countMatches(groups,
+                    MatchMode.fromString(matchMode)));
+
+            if (groups != null) {
+                return groups;
+            } else {
+                logger.log("<WARNING> No match in command output for pattern: " + resolvedPattern);
+                return new LinkedHashMap<String, String>();
+            }
+        } catch (ExtractionException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExtractionException(e);
+        }
+    }
+
+    public hudson.model.Descriptor<Extractor> getDescriptor() {
+        return DESCRIPTOR;
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    /**
+     * Why the command was stopped before its end.
+     */
+    private static enum Termination {
+        MATCHED, TIMEOUT, OUTPUT_LIMIT
+    }
+
+    /**
+     * Runs the command through the launcher of the node, which may be decorated by other
+     * plugins. The output is streamed back to the master where it is copied to the build log
+     * and matched as it arrives.
+     */
+    private void run(ProcStarter starter, MatchingOutputStream outStream, Logger logger)
+            throws IOException, InterruptedException
+    {
+        long start = System.currentTimeMillis();
+        Proc proc = starter.start();
+        Termination termination = null;
+        int code;
+        try {
+            if (terminateOnMatch || timeout > 0 || maxOutputSize > 0) {
+                termination = watch(proc, outStream, start);
+            }
+            if (termination != null) {
+                /* kills the whole process tree */
+                proc.kill();
+            }
+            code = proc.join();
+        } catch (InterruptedException e) {
+            /* build aborted: do not leave the command running on the node */
+            proc.kill();
+            throw e;
+        }
+        outStream.finish();
+        long duration = System.currentTimeMillis() - start;
+        boolean killed = termination != null;
+        if (termination == null && outStream.isLimitExceeded()) {
+            /* ended between two checks, its output was still cut */
+            termination = Termination.OUTPUT_LIMIT;
+        }
+
+        if (termination == Termination.MATCHED) {
+            logger.log("Command terminated after " + duration
+                    + " ms: all variables were matched");
+        } else if (termination == Termination.TIMEOUT) {
+            throw new ExtractionException("Command killed after " + duration
+                    + " ms: timeout of " + timeout + " s exceeded");
+        } else if (termination == Termination.OUTPUT_LIMIT) {
+            throw new ExtractionException("Command " + (killed ? "killed" : "ended") + " after "
+                    + duration + " ms: output exceeded " + maxOutputSize + " bytes");
+        } else if (code != 0) {
+            throw new ExtractionException("Error during command execution (exit code " + code
+                    + " after " + duration + " ms)");
+        } else {
+            logger.log("Command completed in " + duration + " ms");
+        }
+    }
+
+    /**
+     * Waits for the end of the command and returns why it must be stopped, or null if it ended
+     * by itself.
+     */
+    private Termination watch(Proc proc, MatchingOutputStream outStream, long start)
+            throws IOException, InterruptedException
+    {
+        while (proc.isAlive()) {
+            if (terminateOnMatch && outStream.isDone()) {
+                return Termination.MATCHED;
+            } else if (timeout > 0 && System.currentTimeMillis() - start >= timeout * 1000L) {
+                return Termination.TIMEOUT;
+            } else if (outStream.isLimitExceeded()) {
+                return Termination.OUTPUT_LIMIT;
+            }
+            Thread.sleep(POLL_INTERVAL);
+        }
+        return null;
+    }
+
+    /***********
+     * GETTERS *
+     ***********/
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public String getWorkdir() {
+		return workdir;
+	}
+
+	public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    public boolean isComments() {
+        return comments;
+    }
+
+    public boolean isMultiline() {
+        return multiline;
+    }
+
+    public boolean isDotall() {
+        return dotall;
+    }
+
+    public String getMatchMode() {
+        return matchMode;
+    }
+
+    public boolean isTerminateOnMatch() {
+        return terminateOnMatch;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public long getMaxOutputSize() {
+        return maxOutputSize;
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    /**************
+     * DESCRIPTOR *
+     **************/
+
+    public static class DescriptorImpl extends Extractor.Descriptor {
+
+        private static final long serialVersionUID = 7281953615989321037L;
+        public static final boolean DEFAULT_IGNORE_CASE = false;
+        public static final boolean DEFAULT_COMMENTS = true;
+        public static final boolean DEFAULT_MULTILINE = false;
+        public static final boolean DEFAULT_DOTALL = true;
+        public static final boolean DEFAULT_TERMINATE_ON_MATCH = false;
+        /** no timeout */
+        public static final int DEFAULT_TIMEOUT = 0;
+        /** no limit */
+        public static final long DEFAULT_MAX_OUTPUT_SIZE = 0;
+
+        @Override
+        public String getDisplayName() {
+            return "Command Line Regular Expression Extractor";
+        }
+
+        public boolean isDefaultIgnoreCase() {
+            return DEFAULT_IGNORE_CASE;
+        }
+
+        public boolean isDefaultComments() {
+            return DEFAULT_COMMENTS;
+        }
+
+        public boolean isDefaultMultiline() {
+            return DEFAULT_MULTILINE;
+        }
+
+        public boolean isDefaultDotall() {
+            return DEFAULT_DOTALL;
+        }
+
+        public boolean isDefaultTerminateOnMatch() {
+            return DEFAULT_TERMINATE_ON_MATCH;
+        }
+
+        public int getDefaultTimeout() {
+            return DEFAULT_TIMEOUT;
+        }
+
+        public long getDefaultMaxOutputSize() {
+            return DEFAULT_MAX_OUTPUT_SIZE;
+        }
+
+        public ListBoxModel doFillMatchModeItems() {
+            ListBoxModel items = new ListBoxModel();
+            for (MatchMode mode : MatchMode.values()) {
+                items.add(mode.getDisplayName(), mode.name());
+            }
+            return items;
+        }
+
+        public FormValidation doCheckPattern(@QueryParameter String value,
+                @QueryParameter String engine, @QueryParameter boolean comments,
+                @QueryParameter boolean dotall)
+        {
+            return checkPattern(value, engine, comments, dotall);
+        }
+
+        public FormValidation doTestPattern(@QueryParameter String pattern,
+                @QueryParameter String engine, @QueryParameter boolean ignoreCase,
+                @QueryParameter boolean comments, @QueryParameter boolean multiline,
+                @QueryParameter boolean dotall, @QueryParameter String matchMode,
+                @QueryParameter String sample)
+        {
+            return testPattern(null, pattern, PatternCache.flags(ignoreCase, comments,
+                    multiline, dotall), engine, matchMode, sample, null, null);
+        }
+
+        public ListBoxModel doFillEngineItems() {
+            return fillEngineItems();
+        }
+    }
+
+}
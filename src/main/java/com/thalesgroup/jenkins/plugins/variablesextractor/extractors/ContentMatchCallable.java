@@ -0,0 +1,99 @@
+package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
+
+import hudson.FilePath.FileCallable;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ArchiveEntry;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.FileDecoder;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.RegExpSpec;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.StreamingMatcher;
+
+/**
+ * Reads a file (or an entry of an archive) once on the node holding it and matches several
+ * patterns against its content.
+ * Only the variables extracted by each pattern are sent back (null when it did not match).
+ */
+class ContentMatchCallable implements FileCallable<List<Map<String, String>>> {
+
+    private static final long serialVersionUID = -4412397506212985032L;
+
+    private final List<RegExpSpec> specs;
+    private final boolean streaming;
+    /** null for the default charset of the node */
+    private final String charset;
+    /** null to read the file itself */
+    private final ArchiveEntry entry;
+
+    public ContentMatchCallable(List<RegExpSpec> specs, boolean streaming, String charset) {
+        this(specs, streaming, charset, null);
+    }
+
+    public ContentMatchCallable(List<RegExpSpec> specs, boolean streaming, String charset,
+            ArchiveEntry entry)
+    {
+        this.specs = specs;
+        this.streaming = streaming;
+        this.charset = charset;
+        this.entry = entry;
+    }
+
+    public List<Map<String, String>> invoke(File f, VirtualChannel channel) throws IOException,
+            InterruptedException
+    {
+        if (!streaming && entry == null) {
+            return matchContent(FileDecoder.decode(f, FileDecoder.forName(charset)));
+        }
+        InputStream in = ArchiveEntry.open(f, entry);
+        try {
+            if (!streaming) {
+                return matchContent(FileDecoder.decode(in, FileDecoder.forName(charset)));
+            }
+            return matchStream(FileDecoder.newReader(in, FileDecoder.forName(charset)));
+        } finally {
+            in.close();
+        }
+    }
+
+    private List<Map<String, String>> matchStream(Reader reader) throws IOException {
+        List<StreamingMatcher> matchers = new ArrayList<StreamingMatcher>();
+        for (RegExpSpec spec : specs) {
+            matchers.add(new StreamingMatcher(spec.compilePattern(),
+                    StreamingMatcher.DEFAULT_WINDOW_SIZE, spec.newCollector()));
+        }
+        final char[] buffer = new char[8192];
+        int length;
+        int pending = matchers.size();
+        while (pending > 0 && (length = reader.read(buffer)) != -1) {
+            pending = 0;
+            for (StreamingMatcher matcher : matchers) {
+                if (!matcher.isDone() && !matcher.feed(buffer, 0, length)) {
+                    pending++;
+                }
+            }
+        }
+        List<Map<String, String>> results = new ArrayList<Map<String, String>>();
+        for (StreamingMatcher matcher : matchers) {
+            matcher.finish();
+            results.add(matcher.getCollector().getVariables());
+        }
+        return results;
+    }
+
+    private List<Map<String, String>> matchContent(CharBuffer content) {
+        List<Map<String, String>> results = new ArrayList<Map<String, String>>();
+        for (RegExpSpec spec : specs) {
+            results.add(spec.match(content));
+        }
+        return results;
+    }
+
+}
@@ -0,0 +1,218 @@
+package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.FilePath.FileCallable;
+import hudson.model.TaskListener;
+import hudson.model.AbstractBuild;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.Logger;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.CacheMode;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionCache;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionMetrics;
+
+/**
+ * State shared by all the extractors of a build. The build environment is computed once and the
+ * variables extracted so far are layered on top of it, so that an extractor can reference the
+ * variables of the previous ones.
+ */
+public class ExtractionContext {
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final AbstractBuild<?, ?> build;
+    private final TaskListener listener;
+    private final Logger logger;
+    private final EnvVars environment;
+    private final CacheMode cacheMode;
+    private final ExtractionCache cache;
+    private final AtomicInteger cacheHits = new AtomicInteger();
+    private final AtomicInteger cacheMisses = new AtomicInteger();
+    private final Map<Extractor, ExtractionMetrics> metrics = Collections
+            .synchronizedMap(new IdentityHashMap<Extractor, ExtractionMetrics>());
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    public ExtractionContext(AbstractBuild<?, ?> build, TaskListener listener, EnvVars environment)
+    {
+        this(build, listener, environment, CacheMode.NONE, null);
+    }
+
+    public ExtractionContext(AbstractBuild<?, ?> build, TaskListener listener,
+            EnvVars environment, CacheMode cacheMode, ExtractionCache cache)
+    {
+        this.build = build;
+        this.listener = listener;
+        this.logger = new Logger(listener.getLogger());
+        this.environment = environment;
+        this.cacheMode = cacheMode;
+        this.cache = cache;
+    }
+
+    public static ExtractionContext create(AbstractBuild<?, ?> build, TaskListener listener)
+            throws IOException, InterruptedException
+    {
+        return create(build, listener, CacheMode.NONE);
+    }
+
+    /**
+     * Creates a context which reuses the results of the previous builds of the job for the files
+     * which did not change, according to <code>cacheMode</code>.
+     */
+    public static ExtractionContext create(AbstractBuild<?, ?> build, TaskListener listener,
+            CacheMode cacheMode) throws IOException, InterruptedException
+    {
+        ExtractionCache cache = null;
+        if (cacheMode != CacheMode.NONE) {
+            cache = ExtractionCache.load(build.getProject().getRootDir());
+        }
+        return new ExtractionContext(build, listener, build.getEnvironment(listener), cacheMode,
+                cache);
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    public String expand(String value) {
+        return environment.expand(value);
+    }
+
+    /**
+     * Resolves a path against the workspace of the build, unless it is absolute.
+     * 
+     * @return the workspace itself if <code>path</code> is null.
+     */
+    public FilePath resolvePath(String path) {
+        FilePath workspace = build.getWorkspace();
+        if (path == null) {
+            return workspace;
+        } else if (new File(path).isAbsolute()) {
+            return new FilePath(workspace.getChannel(), path);
+        } else {
+            return workspace.child(path);
+        }
+    }
+
+    /**
+     * Makes extracted variables visible to the following extractors.
+     */
+    public void addVariables(Map<String, String> vars) {
+        for (Entry<String, String> entry : vars.entrySet()) {
+            if (entry.getValue() != null) {
+                environment.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Runs <code>callable</code> on the file <code>path</code>, unless the file did not change
+     * since the last build which ran it with the same <code>key</code>. In that case, the
+     * previous result is returned. The key must identify everything the result depends on
+     * besides the file content.
+     * 
+     * The size of the file, the cache hits and the pattern cache lookups are recorded in the
+     * metrics of <code>owners</code>.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T act(FilePath path, String key, FileCallable<T> callable,
+            List<? extends Extractor> owners) throws IOException, InterruptedException
+    {
+        ExtractionCache.Entry entry = cache != null ? cache.get(key) : null;
+        CachingCallable.Result<T> result = path.act(new CachingCallable<T>(callable,
+                entry != null ? entry.getFingerprint() : null, cacheMode == CacheMode.DIGEST));
+        if (result.isUnchanged()) {
+            cacheHits.incrementAndGet();
+            logger.log("Cache hit: " + path.getRemote() + " unchanged since last extraction ("
+                    + result.getFingerprint() + ")");
+            for (Extractor owner : owners) {
+                getMetrics(owner).setCacheHit(true);
+            }
+            return (T) entry.getResult();
+        }
+        for (Extractor owner : owners) {
+            ExtractionMetrics ownerMetrics = getMetrics(owner);
+            ownerMetrics.setPatternCacheHits(result.getPatternCacheHits());
+            ownerMetrics.setPatternCacheMisses(result.getPatternCacheMisses());
+        }
+        if (result.getFingerprint() != null) {
+            for (Extractor owner : owners) {
+                getMetrics(owner).setBytes(result.getFingerprint().getLength());
+            }
+            if (cache != null) {
+                cacheMisses.incrementAndGet();
+                cache.put(key, result.getFingerprint(), result.getValue());
+            }
+        }
+        return result.getValue();
+    }
+
+    /**
+     * @return the metrics of the current run of <code>extractor</code>.
+     */
+    public ExtractionMetrics getMetrics(Extractor extractor) {
+        synchronized (metrics) {
+            ExtractionMetrics extractorMetrics = metrics.get(extractor);
+            if (extractorMetrics == null) {
+                extractorMetrics = new ExtractionMetrics(extractor.getDescriptor()
+                        .getDisplayName());
+                metrics.put(extractor, extractorMetrics);
+            }
+            return extractorMetrics;
+        }
+    }
+
+    /**
+     * Stores the results of this build for the next ones. Failures are only logged as the cache
+     * is not needed for the build to succeed.
+     */
+    public void saveCache() {
+        if (cache != null) {
+            logger.log("Extraction cache: " + cacheHits.get() + " hit(s), " + cacheMisses.get()
+                    + " miss(es)");
+            try {
+                cache.save();
+            } catch (IOException e) {
+                logger.log("<WARNING> Could not save the extraction cache: " + e.getMessage());
+            }
+        }
+    }
+
+    /***********
+     * GETTERS *
+     ***********/
+
+    public AbstractBuild<?, ?> getBuild() {
+        return build;
+    }
+
+    public TaskListener getListener() {
+        return listener;
+    }
+
+    public Logger getLogger() {
+        return logger;
+    }
+
+    public EnvVars getEnvironment() {
+        return environment;
+    }
+
+    public CacheMode getCacheMode() {
+        return cacheMode;
+    }
+
+}
@@ -1,26 +1,189 @@
-package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
-
-import hudson.model.Describable;
-import hudson.model.TaskListener;
-import hudson.model.AbstractBuild;
-
-import java.io.Serializable;
-import java.util.Map;
-
-import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionException;
-
-public abstract class Extractor implements Describable<Extractor>, Serializable {
-
-    private static final long serialVersionUID = 192216864201851260L;
-
-    public abstract Map<String, String> extractVariables(AbstractBuild<?, ?> build,
-            TaskListener listener) throws ExtractionException;
-
-    public static abstract class Descriptor extends hudson.model.Descriptor<Extractor> implements
-            Serializable
-    {
-
-        private static final long serialVersionUID = -5274378027362433086L;
-
-    }
-}
+package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.AbstractProject;
+import hudson.model.Describable;
+import hudson.model.Item;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ArchiveEntry;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionException;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.MatchMode;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PatternCache;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PatternProfiler;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PatternProfiler.Profile;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.RegexEngine;
+
+public abstract class Extractor implements Describable<Extractor>, Serializable {
+
+    private static final long serialVersionUID = 192216864201851260L;
+
+    /**
+     * @throws InterruptedException
+     *             if the build was aborted, once whatever the extractor started is stopped.
+     */
+    public abstract Map<String, String> extractVariables(ExtractionContext context)
+            throws ExtractionException, InterruptedException;
+
+    /**
+     * @return the canonical name of <code>charset</code>, of <code>defaultCharset</code> if it
+     *         is null, or null if both are null.
+     * @throws ExtractionException
+     *             if the charset is not supported by the master.
+     */
+    protected static String resolveCharset(String charset, String defaultCharset)
+            throws ExtractionException
+    {
+        String name = charset != null ? charset : defaultCharset;
+        try {
+            return name != null ? Charset.forName(name).name() : null;
+        } catch (IllegalCharsetNameException e) {
+            throw new ExtractionException("Unsupported charset: " + name, e);
+        } catch (UnsupportedCharsetException e) {
+            throw new ExtractionException("Unsupported charset: " + name, e);
+        }
+    }
+
+    public static abstract class Descriptor extends hudson.model.Descriptor<Extractor> implements
+            Serializable
+    {
+
+        private static final long serialVersionUID = -5274378027362433086L;
+        /** reference to a build variable, expanded before the pattern is compiled */
+        private static final Pattern VARIABLE = Pattern.compile("\\$\\{?\\w");
+        /** chars of a workspace file used to test a pattern */
+        public static final int MAX_SAMPLE_LENGTH = 1024 * 1024;
+
+        /**
+         * Compiles a pattern with the selected engine, so that the constructs it does not
+         * support are reported when the job is configured rather than when it is built. The
+         * patterns which look slow with the Java engine are reported as well.
+         */
+        protected static FormValidation checkPattern(String pattern, String engine,
+                boolean comments, boolean dotall)
+        {
+            if (Util.fixEmptyAndTrim(pattern) == null) {
+                return FormValidation.ok();
+            }
+            try {
+                int flags = PatternCache.flags(false, comments, false, dotall);
+                RegexEngine regexEngine = RegexEngine.fromString(engine);
+                regexEngine.compile(pattern, flags);
+                if (regexEngine == RegexEngine.JAVA) {
+                    List<String> warnings = PatternProfiler.analyze(pattern, flags);
+                    if (!warnings.isEmpty()) {
+                        return FormValidation.warning(join(warnings)
+                                + ". Test the pattern, or use the linear engine.");
+                    }
+                }
+                return FormValidation.ok();
+            } catch (PatternSyntaxException e) {
+                if (VARIABLE.matcher(pattern).find()) {
+                    /* may be valid once the variables are expanded */
+                    return FormValidation.warning(e.getMessage());
+                }
+                return FormValidation.error(e.getMessage());
+            }
+        }
+
+        /**
+         * Matches a pattern against a sample text, or against the beginning of a file of the
+         * workspace when the sample is empty, and reports how long it took.
+         */
+        protected static FormValidation testPattern(AbstractProject<?, ?> project,
+                String pattern, int flags, String engine, String matchMode, String sample,
+                String file, String charset)
+        {
+            if (Util.fixEmptyAndTrim(pattern) == null) {
+                return FormValidation.error("No pattern to test");
+            }
+            try {
+                CharSequence text = sample;
+                if (Util.fixEmpty(sample) == null) {
+                    text = readSample(project, file, charset);
+                }
+                RegexEngine regexEngine = RegexEngine.fromString(engine);
+                Profile profile = PatternProfiler.profile(pattern, flags, regexEngine,
+                        MatchMode.fromString(matchMode), text);
+                String summary = profile.getSummary();
+                if (!profile.getWarnings().isEmpty()) {
+                    summary += ". " + join(profile.getWarnings());
+                }
+                if (profile.isAborted()) {
+                    return FormValidation.error(summary + ". The pattern backtracks "
+                            + "catastrophically on this input"
+                            + (regexEngine == RegexEngine.JAVA ? ", use the linear engine" : ""));
+                } else if (!profile.getWarnings().isEmpty()) {
+                    return FormValidation.warning(summary);
+                }
+                return FormValidation.ok(summary);
+            } catch (PatternSyntaxException e) {
+                return FormValidation.error(e.getMessage());
+            } catch (ExtractionException e) {
+                return FormValidation.error(e.getMessage());
+            }
+        }
+
+        /**
+         * @return the beginning of <code>file</code> in the workspace of <code>project</code>.
+         */
+        private static String readSample(AbstractProject<?, ?> project, String file,
+                String charset) throws ExtractionException
+        {
+            if (Util.fixEmptyAndTrim(file) == null || project == null) {
+                throw new ExtractionException("No sample to test the pattern against");
+            } else if (VARIABLE.matcher(file).find()) {
+                throw new ExtractionException("The file path contains variables, "
+                        + "paste a sample instead");
+            }
+            project.checkPermission(Item.CONFIGURE);
+            FilePath workspace = project.getSomeWorkspace();
+            if (workspace == null) {
+                throw new ExtractionException("No workspace yet, paste a sample instead");
+            }
+            String path = file.trim();
+            ArchiveEntry entry = ArchiveEntry.parse(path);
+            try {
+                FilePath filePath = workspace.child(entry != null ? entry.getArchive() : path);
+                if (!filePath.exists()) {
+                    throw new ExtractionException("File not found in the workspace: " + path);
+                }
+                return filePath.act(new SampleCallable(Util.fixEmptyAndTrim(charset), entry,
+                        MAX_SAMPLE_LENGTH));
+            } catch (IOException e) {
+                throw new ExtractionException("Error reading file: " + path, e);
+            } catch (InterruptedException e) {
+                throw new ExtractionException("Error reading file: " + path, e);
+            }
+        }
+
+        private static String join(List<String> messages) {
+            StringBuilder joined = new StringBuilder();
+            for (String message : messages) {
+                joined.append(joined.length() > 0 ? ". " : "").append(message);
+            }
+            return joined.toString();
+        }
+
+        protected static ListBoxModel fillEngineItems() {
+            ListBoxModel items = new ListBoxModel();
+            for (RegexEngine engine : RegexEngine.values()) {
+                items.add(engine.getDisplayName(), engine.name());
+            }
+            return items;
+        }
+
+    }
+}
@@ -1,185 +1,336 @@
-package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
-
-import hudson.EnvVars;
-import hudson.Extension;
-import hudson.FilePath;
-import hudson.Util;
-import hudson.model.TaskListener;
-import hudson.model.AbstractBuild;
-
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
-
-import org.kohsuke.stapler.DataBoundConstructor;
-
-import com.google.code.regexp.NamedMatcher;
-import com.google.code.regexp.NamedPattern;
-import com.thalesgroup.jenkins.plugins.variablesextractor.Logger;
-import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionException;
-import com.thalesgroup.jenkins.plugins.variablesextractor.util.MultipleFilesMatchedException;
-
-public class FileNameRegExpExtractor extends Extractor {
-
-    private static final long serialVersionUID = 7996203948135536519L;
-
-    /**********
-     * FIELDS *
-     **********/
-    @Extension
-    public static final DescriptorImpl DESCRIPTOR = new DescriptorImpl();
-
-    private final String file;
-    private final String pattern;
-    private final String baseDir;
-    private final boolean ignoreCase;
-
-    /***************
-     * CONSTRUCTOR *
-     ***************/
-
-    @DataBoundConstructor
-    public FileNameRegExpExtractor(String file, String pattern, String baseDir, boolean ignoreCase)
-    {
-        super();
-        this.file = Util.fixEmptyAndTrim(file);
-        this.pattern = Util.fixEmptyAndTrim(pattern);
-        this.baseDir = Util.fixEmptyAndTrim(baseDir);
-        this.ignoreCase = ignoreCase;
-    }
-
-    /************
-     * OVERRIDE *
-     ************/
-
-    @Override
-    public Map<String, String> extractVariables(AbstractBuild<?, ?> build, TaskListener listener)
-            throws ExtractionException
-    {
-        FilePath workspace = build.getWorkspace();
-        EnvVars environment;
-        try {
-            environment = build.getEnvironment(listener);
-        } catch (Exception e1) {
-            throw new ExtractionException(e1);
-        }
-
-        String resolvedFile = environment.expand(this.file);
-        String resolvedPattern = environment.expand(this.pattern);
-        String resolvedBaseDir = environment.expand(this.baseDir);
-        int flags = 0;
-        if (ignoreCase) {
-            flags |= Pattern.CASE_INSENSITIVE;
-        }
-
-        FilePath path;
-        if (resolvedBaseDir != null) {
-            if (new File(resolvedBaseDir).isAbsolute()) {
-                path = new FilePath(workspace.getChannel(), resolvedBaseDir);
-            } else {
-                path = workspace.child(resolvedBaseDir);
-            }
-        } else {
-            path = workspace;
-        }
-
-        try {
-            Logger logger = new Logger(listener.getLogger());
-            logger.log("Extracting variables from file name: " + resolvedFile);
-            String filename = getExpandedFileName(path, resolvedFile);
-            NamedPattern compiledPattern = NamedPattern.compile(resolvedPattern, flags);
-            NamedMatcher matcher = compiledPattern.matcher(filename);
-
-            if (matcher.find()) {
-                return matcher.namedGroups();
-            } else {
-                logger.log("<WARNING> No match in file name for pattern: " + resolvedPattern);
-                return new LinkedHashMap<String, String>();
-            }
-        } catch (FileNotFoundException e) {
-            throw new ExtractionException("File not found: " + e.getMessage());
-        } catch (MultipleFilesMatchedException e) {
-            throw new ExtractionException("Multiple files match with the given pattern: "
-                    + e.getMessage());
-        } catch (PatternSyntaxException e) {
-            throw new ExtractionException("Invalid regexp pattern: " + e.getMessage(), e);
-        } catch (Exception e) {
-            throw new ExtractionException(e);
-        }
-    }
-
-    public hudson.model.Descriptor<Extractor> getDescriptor() {
-        return DESCRIPTOR;
-    }
-
-    /***********
-     * PRIVATE *
-     ***********/
-
-    private String getExpandedFileName(FilePath dir, String fileName) throws IOException,
-            InterruptedException
-    {
-        FilePath[] matchingFiles = dir.list(fileName);
-        if (matchingFiles.length == 1) {
-            return matchingFiles[0].getName();
-        } else if (matchingFiles.length == 0) {
-            throw new FileNotFoundException(dir.getRemote() + "/" + fileName);
-        } else {
-            throw new MultipleFilesMatchedException(dir.getRemote() + "/" + fileName);
-        }
-    }
-
-    /***********
-     * GETTERS *
-     ***********/
-
-    public String getFile() {
-        return file;
-    }
-
-    public String getPattern() {
-        return pattern;
-    }
-
-    public String getBaseDir() {
-        return baseDir;
-    }
-
-    public boolean isIgnoreCase() {
-        return ignoreCase;
-    }
-
-    /**************
-     * DESCRIPTOR *
-     **************/
-
-    public static class DescriptorImpl extends Extractor.Descriptor {
-
-        private static final long serialVersionUID = -1534970341736440118L;
-        public static final String DEFAULT_PATTERN = "(?P<NAME>\\w+)-(?P<VERSION>.+)"
-                + "\\.(?P<TIMESTAMP>.+)\\.(?P<FILEEXT>\\w+)";
-        public static final String DEFAULT_BASEDIR = "";
-        public static final boolean DEFAULT_IGNORECASE = false;
-
-        @Override
-        public String getDisplayName() {
-            return "File-Name Regular Expression Extractor";
-        }
-
-        public static String getDefaultPattern() {
-            return DEFAULT_PATTERN;
-        }
-
-        public static String getDefaultBaseDir() {
-            return DEFAULT_BASEDIR;
-        }
-
-        public static boolean isDefaultIgnoreCase() {
-            return DEFAULT_IGNORECASE;
-        }
-    }
-}
+package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.FilePath.FileCallable;
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.PatternSyntaxException;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.Logger;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.CompiledPattern;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionException;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionMetrics;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.FileFinder;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.FileSelection;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.MatchCollector;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.MatchMode;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.MultipleFilesMatchedException;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PatternCache;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PatternMatcher;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.RegexEngine;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.VersionComparator;
+
+public class FileNameRegExpExtractor extends Extractor {
+
+    private static final long serialVersionUID = 7996203948135536519L;
+
+    /**********
+     * FIELDS *
+     **********/
+    @Extension
+    public static final DescriptorImpl DESCRIPTOR = new DescriptorImpl();
+
+    private final String file;
+    private final String pattern;
+    private final String baseDir;
+    private final boolean ignoreCase;
+    private final String selection;
+    private final String versionGroup;
+    private final String engine;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    @DataBoundConstructor
+    public FileNameRegExpExtractor(String file, String pattern, String baseDir,
+            boolean ignoreCase, String selection, String versionGroup, String engine)
+    {
+        super();
+        this.file = Util.fixEmptyAndTrim(file);
+        this.pattern = Util.fixEmptyAndTrim(pattern);
+        this.baseDir = Util.fixEmptyAndTrim(baseDir);
+        this.ignoreCase = ignoreCase;
+        this.selection = selection;
+        this.versionGroup = Util.fixEmptyAndTrim(versionGroup);
+        this.engine = engine;
+    }
+
+    /************
+     * OVERRIDE *
+     ************/
+
+    @Override
+    public Map<String, String> extractVariables(ExtractionContext context)
+            throws ExtractionException
+    {
+        String resolvedFile = context.expand(this.file);
+        String resolvedPattern = context.expand(this.pattern);
+        String resolvedBaseDir = context.expand(this.baseDir);
+        int flags = PatternCache.flags(ignoreCase, false, false, false);
+
+        FilePath path = context.resolvePath(resolvedBaseDir);
+
+        try {
+            Logger logger = context.getLogger();
+            logger.log("Extracting variables from file name: " + resolvedFile);
+            Map<String, String> groups = path.act(new MatchCallable(resolvedFile,
+                    resolvedPattern, flags, FileSelection.fromString(selection),
+                    versionGroup != null ? versionGroup : DescriptorImpl.DEFAULT_VERSION_GROUP,
+                    RegexEngine.fromString(engine), context.getListener()));
+
+            FileSelection fileSelection = FileSelection.fromString(selection);
+            context.getMetrics(this).setMatches(ExtractionMetrics.countMatches(groups,
+                    fileSelection == FileSelection.ALL ? MatchMode.ALL : MatchMode.FIRST));
+            if (groups != null) {
+                return groups;
+            } else {
+                logger.log("<WARNING> No match in file name for pattern: " + resolvedPattern);
+                return new LinkedHashMap<String, String>();
+            }
+        } catch (FileNotFoundException e) {
+            throw new ExtractionException("File not found: " + e.getMessage());
+        } catch (MultipleFilesMatchedException e) {
+            throw new ExtractionException("Multiple files match with the given pattern: "
+                    + e.getMessage());
+        } catch (PatternSyntaxException e) {
+            throw new ExtractionException("Invalid regexp pattern: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new ExtractionException(e);
+        }
+    }
+
+    public hudson.model.Descriptor<Extractor> getDescriptor() {
+        return DESCRIPTOR;
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    /**
+     * Lists and matches the file names on the node holding the directory so that only the
+     * named groups of the selected file(s) are sent back.
+     */
+    private static class MatchCallable implements FileCallable<Map<String, String>> {
+
+        private static final long serialVersionUID = 3071870924185227212L;
+
+        private final String fileName;
+        private final String pattern;
+        private final int flags;
+        private final FileSelection selection;
+        private final String versionGroup;
+        private final RegexEngine engine;
+        private final TaskListener listener;
+
+        public MatchCallable(String fileName, String pattern, int flags,
+                FileSelection selection, String versionGroup, RegexEngine engine,
+                TaskListener listener)
+        {
+            this.fileName = fileName;
+            this.pattern = pattern;
+            this.flags = flags;
+            this.selection = selection;
+            this.versionGroup = versionGroup;
+            this.engine = engine;
+            this.listener = listener;
+        }
+
+        public Map<String, String> invoke(File f, VirtualChannel channel) throws IOException,
+                InterruptedException
+        {
+            CompiledPattern compiledPattern = engine.compile(pattern, flags);
+            if (selection == FileSelection.FAIL) {
+                String name = getExpandedFileName(f, fileName);
+                PatternMatcher matcher = compiledPattern.matcher(name);
+                if (matcher.find()) {
+                    return new LinkedHashMap<String, String>(matcher.namedGroups());
+                } else {
+                    return null;
+                }
+            }
+
+            List<File> files = new FileFinder(fileName, Integer.MAX_VALUE).find(f);
+            if (files.isEmpty()) {
+                throw new FileNotFoundException(f.getPath() + "/" + fileName);
+            }
+            /* same order whatever the file system */
+            Collections.sort(files);
+
+            MatchCollector collector = new MatchCollector(MatchMode.ALL);
+            File selected = null;
+            Map<String, String> selectedGroups = null;
+            for (File file : files) {
+                PatternMatcher matcher = compiledPattern.matcher(file.getName());
+                if (!matcher.find()) {
+                    continue;
+                }
+                Map<String, String> groups = matcher.namedGroups();
+                if (selection == FileSelection.ALL) {
+                    collector.add(groups);
+                } else if (selected == null || isBetter(file, groups, selected, selectedGroups)) {
+                    selected = file;
+                    selectedGroups = groups;
+                }
+            }
+
+            Logger logger = new Logger(listener.getLogger());
+            if (selection == FileSelection.ALL) {
+                logger.log(files.size() + " file(s) found, " + collector.getCount()
+                        + " matching the pattern");
+                return collector.getVariables();
+            }
+            if (selected != null) {
+                logger.log(files.size() + " file(s) found, selected: " + selected.getName());
+                return new LinkedHashMap<String, String>(selectedGroups);
+            }
+            return null;
+        }
+
+        /**
+         * Ties are broken by the file name, so that the selection does not depend on the order
+         * of the directory listing.
+         */
+        private boolean isBetter(File file, Map<String, String> groups, File selected,
+                Map<String, String> selectedGroups)
+        {
+            int result = 0;
+            switch (selection) {
+            case NEWEST:
+                result = Long.valueOf(file.lastModified()).compareTo(selected.lastModified());
+                break;
+            case HIGHEST_VERSION:
+                result = VersionComparator.INSTANCE.compare(groups.get(versionGroup),
+                        selectedGroups.get(versionGroup));
+                break;
+            default:
+                break;
+            }
+            return result > 0 || (result == 0 && file.getName().compareTo(selected.getName()) > 0);
+        }
+
+        /**
+         * Stops walking the directory as soon as a second file is found.
+         */
+        private static String getExpandedFileName(File dir, String fileName) throws IOException
+        {
+            List<File> matchingFiles = new FileFinder(fileName, 2).find(dir);
+            if (matchingFiles.size() == 1) {
+                return matchingFiles.get(0).getName();
+            } else if (matchingFiles.size() == 0) {
+                throw new FileNotFoundException(dir.getPath() + "/" + fileName);
+            } else {
+                throw new MultipleFilesMatchedException(dir.getPath() + "/" + fileName);
+            }
+        }
+    }
+
+    /***********
+     * GETTERS *
+     ***********/
+
+    public String getFile() {
+        return file;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public String getBaseDir() {
+        return baseDir;
+    }
+
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    public String getSelection() {
+        return selection;
+    }
+
+    public String getVersionGroup() {
+        return versionGroup;
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    /**************
+     * DESCRIPTOR *
+     **************/
+
+    public static class DescriptorImpl extends Extractor.Descriptor {
+
+        private static final long serialVersionUID = -1534970341736440118L;
+        public static final String DEFAULT_PATTERN = "(?P<NAME>\\w+)-(?P<VERSION>.+)"
+                + "\\.(?P<TIMESTAMP>.+)\\.(?P<FILEEXT>\\w+)";
+        public static final String DEFAULT_BASEDIR = "";
+        public static final boolean DEFAULT_IGNORECASE = false;
+        public static final String DEFAULT_VERSION_GROUP = "VERSION";
+
+        @Override
+        public String getDisplayName() {
+            return "File-Name Regular Expression Extractor";
+        }
+
+        public static String getDefaultPattern() {
+            return DEFAULT_PATTERN;
+        }
+
+        public static String getDefaultBaseDir() {
+            return DEFAULT_BASEDIR;
+        }
+
+        public static boolean isDefaultIgnoreCase() {
+            return DEFAULT_IGNORECASE;
+        }
+
+        public static String getDefaultVersionGroup() {
+            return DEFAULT_VERSION_GROUP;
+        }
+
+        public ListBoxModel doFillSelectionItems() {
+            ListBoxModel items = new ListBoxModel();
+            for (FileSelection selection : FileSelection.values()) {
+                items.add(selection.getDisplayName(), selection.name());
+            }
+            return items;
+        }
+
+        public FormValidation doCheckPattern(@QueryParameter String value,
+                @QueryParameter String engine)
+        {
+            return checkPattern(value, engine, false, false);
+        }
+
+        public FormValidation doTestPattern(@QueryParameter String pattern,
+                @QueryParameter String engine, @QueryParameter boolean ignoreCase,
+                @QueryParameter String sample)
+        {
+            return testPattern(null, pattern, PatternCache.flags(ignoreCase, false, false,
+                    false), engine, MatchMode.FIRST.name(), sample, null, null);
+        }
+
+        public ListBoxModel doFillEngineItems() {
+            return fillEngineItems();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.FilePath.FileCallable;
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Map;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.Logger;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ArchiveEntry;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionException;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.FileDecoder;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.JsonPathReader;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PathMappings;
+
+/**
+ * Extracts the values of member paths from a JSON file (e.g. a package.json), reading it only
+ * until all the paths are resolved.
+ */
+public class JsonFileExtractor extends Extractor {
+
+    private static final long serialVersionUID = 2203658452096471395L;
+
+    /**********
+     * FIELDS *
+     **********/
+    @Extension
+    public static final DescriptorImpl DESCRIPTOR = new DescriptorImpl();
+
+    private final String file;
+    private final String mappings;
+    private final String charset;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    @DataBoundConstructor
+    public JsonFileExtractor(String file, String mappings, String charset) {
+        super();
+        this.file = Util.fixEmptyAndTrim(file);
+        this.mappings = mappings;
+        this.charset = Util.fixEmptyAndTrim(charset);
+    }
+
+    /************
+     * OVERRIDE *
+     ************/
+
+    @Override
+    public Map<String, String> extractVariables(ExtractionContext context)
+            throws ExtractionException
+    {
+        String resolvedFile = context.expand(this.file);
+        ArchiveEntry entry = ArchiveEntry.parse(resolvedFile);
+        FilePath filePath = context.resolvePath(entry != null ? entry.getArchive()
+                : resolvedFile);
+
+        String resolvedCharset = resolveCharset(charset, DescriptorImpl.DEFAULT_CHARSET);
+
+        try {
+            Logger logger = context.getLogger();
+            logger.log("Extracting variables from JSON file: " + resolvedFile);
+
+            PathMappings pathMappings = PathMappings.parse(context.expand(mappings),
+                    JsonPathReader.NORMALIZER);
+            Map<String, String> values = context.act(filePath, "json:" + filePath.getRemote()
+                    + (entry != null ? ArchiveEntry.SEPARATOR + entry.getName() : "") + ":"
+                    + resolvedCharset + ":" + pathMappings, new JsonCallable(pathMappings,
+                    resolvedCharset, entry), Collections.singletonList(this));
+            for (String path : pathMappings.getPaths()) {
+                if (!values.containsKey(path)) {
+                    logger.log("<WARNING> No value found for path: " + path);
+                }
+            }
+            context.getMetrics(this).setMatches(values.size());
+            return pathMappings.toVariables(values);
+        } catch (IllegalArgumentException e) {
+            throw new ExtractionException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new ExtractionException("Error reading file: " + resolvedFile, e);
+        } catch (InterruptedException e) {
+            throw new ExtractionException("Error reading file: " + resolvedFile, e);
+        }
+    }
+
+    public hudson.model.Descriptor<Extractor> getDescriptor() {
+        return DESCRIPTOR;
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    /**
+     * Parses the document on the node holding the file so that only the resolved values are
+     * sent back.
+     */
+    private static class JsonCallable implements FileCallable<Map<String, String>> {
+
+        private static final long serialVersionUID = -5030291767318437113L;
+
+        private final PathMappings mappings;
+        private final String charset;
+        /** null to read the file itself */
+        private final ArchiveEntry entry;
+
+        public JsonCallable(PathMappings mappings, String charset, ArchiveEntry entry) {
+            this.mappings = mappings;
+            this.charset = charset;
+            this.entry = entry;
+        }
+
+        public Map<String, String> invoke(File f, VirtualChannel channel) throws IOException,
+                InterruptedException
+        {
+            Reader reader = FileDecoder.newReader(ArchiveEntry.open(f, entry),
+                    Charset.forName(charset));
+            try {
+                return new JsonPathReader(mappings).read(reader);
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /***********
+     * GETTERS *
+     ***********/
+
+    public String getFile() {
+        return file;
+    }
+
+    public String getMappings() {
+        return mappings;
+    }
+
+    public String getCharset() {
+        return charset;
+    }
+
+    /**************
+     * DESCRIPTOR *
+     **************/
+
+    public static class DescriptorImpl extends Extractor.Descriptor {
+
+        private static final long serialVersionUID = 4960214566405437213L;
+        public static final String DEFAULT_FILE = "package.json";
+        public static final String DEFAULT_MAPPINGS = "VERSION = $.version";
+        public static final String DEFAULT_CHARSET = "UTF-8";
+
+        @Override
+        public String getDisplayName() {
+            return "JSON File Extractor";
+        }
+
+        public static String getDefaultFile() {
+            return DEFAULT_FILE;
+        }
+
+        public static String getDefaultMappings() {
+            return DEFAULT_MAPPINGS;
+        }
+
+        public String getDefaultCharset() {
+            return DEFAULT_CHARSET;
+        }
+
+    }
+}
@@ -0,0 +1,234 @@
+package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
+
+import hudson.Extension;
+import hudson.model.AbstractProject;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.MatchMode;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PatternCache;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.RegExpSpec;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.RegexEngine;
+
+public class MultiPatternFileExtractor extends AbstractFileContentExtractor {
+
+    private static final long serialVersionUID = -5329785049497018873L;
+
+    /**********
+     * FIELDS *
+     **********/
+    @Extension
+    public static final DescriptorImpl DESCRIPTOR = new DescriptorImpl();
+
+    private final String file;
+    private final List<PatternDefinition> patterns;
+    private final boolean streaming;
+    private final String charset;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    @DataBoundConstructor
+    public MultiPatternFileExtractor(String file, List<PatternDefinition> patterns,
+            boolean streaming, String charset)
+    {
+        super();
+        this.file = file;
+        this.patterns = patterns != null ? patterns : Collections.<PatternDefinition> emptyList();
+        this.streaming = streaming;
+        this.charset = charset;
+    }
+
+    /************
+     * OVERRIDE *
+     ************/
+
+    @Override
+    protected List<String> getConfiguredPatterns() {
+        List<String> configured = new ArrayList<String>();
+        for (PatternDefinition definition : patterns) {
+            configured.add(definition.getPattern());
+        }
+        return configured;
+    }
+
+    @Override
+    protected List<RegExpSpec> resolvePatterns(ExtractionContext context) {
+        List<RegExpSpec> specs = new ArrayList<RegExpSpec>();
+        for (PatternDefinition definition : patterns) {
+            specs.add(definition.resolve(context));
+        }
+        return specs;
+    }
+
+    public hudson.model.Descriptor<Extractor> getDescriptor() {
+        return DESCRIPTOR;
+    }
+
+    /***********
+     * GETTERS *
+     ***********/
+
+    @Override
+    public String getFile() {
+        return file;
+    }
+
+    public List<PatternDefinition> getPatterns() {
+        return patterns;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    @Override
+    public String getCharset() {
+        return charset;
+    }
+
+    /**********************
+     * PATTERN DEFINITION *
+     **********************/
+
+    public static class PatternDefinition implements Serializable {
+
+        private static final long serialVersionUID = 5206436101592011734L;
+
+        private final String pattern;
+        private final boolean ignoreCase;
+        private final boolean comments;
+        private final boolean multiline;
+        private final boolean dotall;
+        private final String matchMode;
+        private final String engine;
+
+        @DataBoundConstructor
+        public PatternDefinition(String pattern, boolean ignoreCase, boolean comments,
+                boolean multiline, boolean dotall, String matchMode, String engine)
+        {
+            this.pattern = pattern;
+            this.ignoreCase = ignoreCase;
+            this.comments = comments;
+            this.multiline = multiline;
+            this.dotall = dotall;
+            this.matchMode = matchMode;
+            this.engine = engine;
+        }
+
+        public RegExpSpec resolve(ExtractionContext context) {
+            int flags = PatternCache.flags(ignoreCase, comments, multiline, dotall);
+            return new RegExpSpec(context.expand(pattern), flags, MatchMode.fromString(matchMode),
+                    RegexEngine.fromString(engine));
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public boolean isIgnoreCase() {
+            return ignoreCase;
+        }
+
+        public boolean isComments() {
+            return comments;
+        }
+
+        public boolean isMultiline() {
+            return multiline;
+        }
+
+        public boolean isDotall() {
+            return dotall;
+        }
+
+        public String getMatchMode() {
+            return matchMode;
+        }
+
+        public String getEngine() {
+            return engine;
+        }
+    }
+
+    /**************
+     * DESCRIPTOR *
+     **************/
+
+    public static class DescriptorImpl extends Extractor.Descriptor {
+
+        private static final long serialVersionUID = 3383367961549137393L;
+        public static final boolean DEFAULT_IGNORE_CASE = false;
+        public static final boolean DEFAULT_COMMENTS = true;
+        public static final boolean DEFAULT_MULTILINE = false;
+        public static final boolean DEFAULT_DOTALL = true;
+        public static final boolean DEFAULT_STREAMING = false;
+
+        @Override
+        public String getDisplayName() {
+            return "File Content Multiple Patterns Extractor";
+        }
+
+        public boolean isDefaultIgnoreCase() {
+            return DEFAULT_IGNORE_CASE;
+        }
+
+        public boolean isDefaultComments() {
+            return DEFAULT_COMMENTS;
+        }
+
+        public boolean isDefaultMultiline() {
+            return DEFAULT_MULTILINE;
+        }
+
+        public boolean isDefaultDotall() {
+            return DEFAULT_DOTALL;
+        }
+
+        public boolean isDefaultStreaming() {
+            return DEFAULT_STREAMING;
+        }
+
+        public ListBoxModel doFillMatchModeItems() {
+            ListBoxModel items = new ListBoxModel();
+            for (MatchMode mode : MatchMode.values()) {
+                items.add(mode.getDisplayName(), mode.name());
+            }
+            return items;
+        }
+
+        public FormValidation doCheckPattern(@QueryParameter String value,
+                @QueryParameter String engine, @QueryParameter boolean comments,
+                @QueryParameter boolean dotall)
+        {
+            return checkPattern(value, engine, comments, dotall);
+        }
+
+        public FormValidation doTestPattern(@AncestorInPath AbstractProject<?, ?> project,
+                @QueryParameter String pattern, @QueryParameter String engine,
+                @QueryParameter boolean ignoreCase, @QueryParameter boolean comments,
+                @QueryParameter boolean multiline, @QueryParameter boolean dotall,
+                @QueryParameter String matchMode, @QueryParameter String sample,
+                @QueryParameter String file, @QueryParameter String charset)
+        {
+            return testPattern(project, pattern, PatternCache.flags(ignoreCase, comments,
+                    multiline, dotall), engine, matchMode, sample, file, charset);
+        }
+
+        public ListBoxModel doFillEngineItems() {
+            return fillEngineItems();
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
+
+import hudson.FilePath.FileCallable;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ArchiveEntry;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.FileDecoder;
+
+/**
+ * Reads the beginning of a file (or of an entry of an archive) on the node holding it, to test
+ * the patterns when a job is configured.
+ */
+class SampleCallable implements FileCallable<String> {
+
+    private static final long serialVersionUID = 2809655931465386417L;
+
+    /** null for the default charset of the node */
+    private final String charset;
+    /** null to read the file itself */
+    private final ArchiveEntry entry;
+    private final int maxLength;
+
+    public SampleCallable(String charset, ArchiveEntry entry, int maxLength) {
+        this.charset = charset;
+        this.entry = entry;
+        this.maxLength = maxLength;
+    }
+
+    public String invoke(File f, VirtualChannel channel) throws IOException,
+            InterruptedException
+    {
+        Reader reader = FileDecoder.newReader(ArchiveEntry.open(f, entry),
+                FileDecoder.forName(charset));
+        try {
+            StringBuilder sample = new StringBuilder();
+            char[] buffer = new char[8192];
+            int length;
+            while (sample.length() < maxLength
+                    && (length = reader.read(buffer, 0, Math.min(buffer.length, maxLength
+                            - sample.length()))) != -1)
+            {
+                sample.append(buffer, 0, length);
+            }
+            return sample.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+}
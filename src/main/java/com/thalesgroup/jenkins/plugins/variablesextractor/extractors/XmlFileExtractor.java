@@ -0,0 +1,189 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.extractors;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.FilePath.FileCallable;
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import com.thalesgroup.jenkins.plugins.variablesextractor.Logger;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ArchiveEntry;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.ExtractionException;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.PathMappings;
+import com.thalesgroup.jenkins.plugins.variablesextractor.util.XmlPathReader;
+
+/**
+ * Extracts the values of element and attribute paths from an XML file (e.g. a pom.xml),
+ * reading it only until all the paths are resolved.
+ */
+public class XmlFileExtractor extends Extractor {
+
+    private static final long serialVersionUID = -6529848425390174318L;
+
+    /**********
+     * FIELDS *
+     **********/
+    @Extension
+    public static final DescriptorImpl DESCRIPTOR = new DescriptorImpl();
+
+    private final String file;
+    private final String mappings;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    @DataBoundConstructor
+    public XmlFileExtractor(String file, String mappings) {
+        super();
+        this.file = Util.fixEmptyAndTrim(file);
+        this.mappings = mappings;
+    }
+
+    /************
+     * OVERRIDE *
+     ************/
+
+    @Override
+    public Map<String, String> extractVariables(ExtractionContext context)
+            throws ExtractionException
+    {
+        String resolvedFile = context.expand(this.file);
+        ArchiveEntry entry = ArchiveEntry.parse(resolvedFile);
+        FilePath filePath = context.resolvePath(entry != null ? entry.getArchive()
+                : resolvedFile);
+
+        try {
+            Logger logger = context.getLogger();
+            logger.log("Extracting variables from XML file: " + resolvedFile);
+
+            PathMappings pathMappings = PathMappings.parse(context.expand(mappings),
+                    XmlPathReader.NORMALIZER);
+            Map<String, String> values = context.act(filePath, "xml:" + filePath.getRemote()
+                    + (entry != null ? ArchiveEntry.SEPARATOR + entry.getName() : "") + ":"
+                    + pathMappings, new XmlCallable(pathMappings, entry),
+                    Collections.singletonList(this));
+            for (String path : pathMappings.getPaths()) {
+                if (!values.containsKey(path)) {
+                    logger.log("<WARNING> No value found for path: " + path);
+                }
+            }
+            context.getMetrics(this).setMatches(values.size());
+            return pathMappings.toVariables(values);
+        } catch (IllegalArgumentException e) {
+            throw new ExtractionException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new ExtractionException("Error reading file: " + resolvedFile, e);
+        } catch (InterruptedException e) {
+            throw new ExtractionException("Error reading file: " + resolvedFile, e);
+        }
+    }
+
+    public hudson.model.Descriptor<Extractor> getDescriptor() {
+        return DESCRIPTOR;
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    /**
+     * Parses the document on the node holding the file so that only the resolved values are
+     * sent back.
+     */
+    private static class XmlCallable implements FileCallable<Map<String, String>> {
+
+        private static final long serialVersionUID = 4370513185620271968L;
+
+        private final PathMappings mappings;
+        /** null to read the file itself */
+        private final ArchiveEntry entry;
+
+        public XmlCallable(PathMappings mappings, ArchiveEntry entry) {
+            this.mappings = mappings;
+            this.entry = entry;
+        }
+
+        public Map<String, String> invoke(File f, VirtualChannel channel) throws IOException,
+                InterruptedException
+        {
+            /* the parser detects the encoding from the XML declaration */
+            InputStream in = new BufferedInputStream(ArchiveEntry.open(f, entry));
+            try {
+                return new XmlPathReader(mappings).read(in);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /***********
+     * GETTERS *
+     ***********/
+
+    public String getFile() {
+        return file;
+    }
+
+    public String getMappings() {
+        return mappings;
+    }
+
+    /**************
+     * DESCRIPTOR *
+     **************/
+
+    public static class DescriptorImpl extends Extractor.Descriptor {
+
+        private static final long serialVersionUID = -1289046513578400395L;
+        public static final String DEFAULT_FILE = "pom.xml";
+        public static final String DEFAULT_MAPPINGS = "VERSION = /project/version";
+
+        @Override
+        public String getDisplayName() {
+            return "XML File Extractor";
+        }
+
+        public static String getDefaultFile() {
+            return DEFAULT_FILE;
+        }
+
+        public static String getDefaultMappings() {
+            return DEFAULT_MAPPINGS;
+        }
+
+    }
+}
@@ -0,0 +1,125 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An entry inside a zip archive (jar, war, ear...), given as
+ * <code>path/to/archive.jar!/META-INF/MANIFEST.MF</code>.
+ * 
+ * The entry is located through the central directory of the archive and inflated on the fly:
+ * the archive is never unpacked and the other entries are not read.
+ */
+public class ArchiveEntry implements Serializable {
+
+    private static final long serialVersionUID = -4737306283659346604L;
+
+    public static final String SEPARATOR = "!/";
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final String archive;
+    private final String name;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    public ArchiveEntry(String archive, String name) {
+        this.archive = archive;
+        this.name = name;
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * @return the entry designated by <code>path</code>, or null if it is a plain file path.
+     */
+    public static ArchiveEntry parse(String path) {
+        int separator = path != null ? path.indexOf(SEPARATOR) : -1;
+        if (separator <= 0) {
+            return null;
+        }
+        return new ArchiveEntry(path.substring(0, separator), path.substring(separator
+                + SEPARATOR.length()));
+    }
+
+    /**
+     * Opens <code>file</code>, or the <code>entry</code> inside it if not null. Closing the
+     * stream closes the archive.
+     */
+    public static InputStream open(File file, ArchiveEntry entry) throws IOException {
+        if (entry == null) {
+            return new FileInputStream(file);
+        }
+        final ZipFile zip = new ZipFile(file);
+        ZipEntry zipEntry = zip.getEntry(entry.getName());
+        if (zipEntry == null || zipEntry.isDirectory()) {
+            zip.close();
+            throw new FileNotFoundException(file.getPath() + SEPARATOR + entry.getName());
+        }
+        return new FilterInputStream(zip.getInputStream(zipEntry)) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    zip.close();
+                }
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return archive + SEPARATOR + name;
+    }
+
+    /***********
+     * GETTERS *
+     ***********/
+
+    public String getArchive() {
+        return archive;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
@@ -0,0 +1,132 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import hudson.XmlFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Results of the previous extractions of a job, keyed by the resolved file and the extractor
+ * configuration, and stored in the job directory.
+ * 
+ * Only the most recent entries are kept so that keys depending on build variables do not make
+ * the file grow forever.
+ */
+public class ExtractionCache {
+
+    public static final String FILE_NAME = "variables-extractor-cache.xml";
+
+    /** maximum number of entries stored per job */
+    private static final int MAX_ENTRIES = 100;
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+    private transient XmlFile file;
+    private transient boolean dirty = false;
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * Loads the cache stored in <code>rootDir</code>, or an empty one if there is none or if it
+     * cannot be read.
+     */
+    public static ExtractionCache load(File rootDir) {
+        XmlFile xml = new XmlFile(new File(rootDir, FILE_NAME));
+        ExtractionCache cache = null;
+        if (xml.exists()) {
+            try {
+                cache = (ExtractionCache) xml.read();
+            } catch (IOException e) {
+                /* corrupted or from an incompatible version: start from scratch */
+            } catch (ClassCastException e) {
+                /* same */
+            }
+        }
+        if (cache == null) {
+            cache = new ExtractionCache();
+        }
+        cache.file = xml;
+        return cache;
+    }
+
+    /**
+     * Writes the cache back to the job directory if it was modified.
+     */
+    public synchronized void save() throws IOException {
+        if (dirty && file != null) {
+            file.write(this);
+            dirty = false;
+        }
+    }
+
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, FileFingerprint fingerprint, Object result) {
+        entries.remove(key);
+        entries.put(key, new Entry(fingerprint, result));
+        while (entries.size() > MAX_ENTRIES) {
+            entries.remove(entries.keySet().iterator().next());
+        }
+        dirty = true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * A fingerprint and what was extracted from the file having it.
+     */
+    public static class Entry {
+
+        private final FileFingerprint fingerprint;
+        private final Object result;
+
+        public Entry(FileFingerprint fingerprint, Object result) {
+            this.fingerprint = fingerprint;
+            this.result = result;
+        }
+
+        public FileFingerprint getFingerprint() {
+            return fingerprint;
+        }
+
+        public Object getResult() {
+            return result;
+        }
+    }
+
+}
@@ -1,49 +1,49 @@
-/************************************************************************************
- * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
- * Author: Robin Jarry                                                              *
- *                                                                                  *
- * The MIT License                                                                  *
- *                                                                                  *
- * Permission is hereby granted, free of charge, to any person obtaining a copy     *
- * of this software and associated documentation files (the "Software"), to deal    *
- * in the Software without restriction, including without limitation the rights     *
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
- * copies of the Software, and to permit persons to whom the Software is            *
- * furnished to do so, subject to the following conditions:                         *
- *                                                                                  *
- * The above copyright notice and this permission notice shall be included in       *
- * all copies or substantial portions of the Software.                              *
- *                                                                                  *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
- * THE SOFTWARE.                                                                    *
- ************************************************************************************/
-package com.thalesgroup.jenkins.plugins.variablesextractor.util;
-
-import java.io.IOException;
-
-public class ExtractionException extends IOException {
-
-    private static final long serialVersionUID = 6254888887802799109L;
-
-    public ExtractionException() {
-        super();
-    }
-
-    public ExtractionException(String message, Throwable cause) {
-        super(message, cause);
-    }
-
-    public ExtractionException(String message) {
-        super(message);
-    }
-
-    public ExtractionException(Throwable cause) {
-        super(cause);
-    }
-
-}
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.IOException;
+
+public class ExtractionException extends IOException {
+
+    private static final long serialVersionUID = 6254888887802799109L;
+
+    public ExtractionException() {
+        super();
+    }
+
+    public ExtractionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ExtractionException(String message) {
+        super(message);
+    }
+
+    public ExtractionException(Throwable cause) {
+        super(cause);
+    }
+
+}
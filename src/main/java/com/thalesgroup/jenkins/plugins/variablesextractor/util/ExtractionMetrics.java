@@ -0,0 +1,193 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * What one extractor did during a build: stored with the build and exported through the remote
+ * API.
+ */
+@ExportedBean(defaultVisibility = 2)
+public class ExtractionMetrics implements Serializable {
+
+    private static final long serialVersionUID = -6043915810624317042L;
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final String extractor;
+    private long duration;
+    private long bytes;
+    private int matches;
+    private int variables;
+    private boolean cacheHit;
+    private boolean sharedRead;
+    private long patternCacheHits;
+    private long patternCacheMisses;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    public ExtractionMetrics(String extractor) {
+        this.extractor = extractor;
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * @return the number of matches of a pattern given the variables it extracted.
+     */
+    public static int countMatches(Map<String, String> variables, MatchMode mode) {
+        if (variables == null) {
+            return 0;
+        } else if (mode != MatchMode.ALL) {
+            return 1;
+        }
+        int count = 0;
+        for (Entry<String, String> variable : variables.entrySet()) {
+            if (variable.getKey().endsWith(MatchCollector.COUNT_SUFFIX)) {
+                count = Math.max(count, Integer.parseInt(variable.getValue()));
+            }
+        }
+        return count;
+    }
+
+    /***********
+     * GETTERS *
+     ***********/
+
+    /**
+     * @return the display name of the extractor.
+     */
+    @Exported
+    public String getExtractor() {
+        return extractor;
+    }
+
+    /**
+     * @return the wall time in milliseconds (of the whole read for a shared read).
+     */
+    @Exported
+    public synchronized long getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the size of the input in bytes: file read or command output (0 if unknown or if
+     *         the cache was hit).
+     */
+    @Exported
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    @Exported
+    public synchronized int getMatches() {
+        return matches;
+    }
+
+    @Exported
+    public synchronized int getVariables() {
+        return variables;
+    }
+
+    @Exported
+    public synchronized boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * @return true if the file was read once for several extractors.
+     */
+    @Exported
+    public synchronized boolean isSharedRead() {
+        return sharedRead;
+    }
+
+    /**
+     * @return the patterns found in the cache of the node during the read (of the whole read for
+     *         a shared read).
+     */
+    @Exported
+    public synchronized long getPatternCacheHits() {
+        return patternCacheHits;
+    }
+
+    /**
+     * @return the patterns compiled on the node during the read (of the whole read for a shared
+     *         read).
+     */
+    @Exported
+    public synchronized long getPatternCacheMisses() {
+        return patternCacheMisses;
+    }
+
+    /***********
+     * SETTERS *
+     ***********/
+
+    public synchronized void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    public synchronized void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public synchronized void setMatches(int matches) {
+        this.matches = matches;
+    }
+
+    public synchronized void setVariables(int variables) {
+        this.variables = variables;
+    }
+
+    public synchronized void setCacheHit(boolean cacheHit) {
+        this.cacheHit = cacheHit;
+    }
+
+    public synchronized void setSharedRead(boolean sharedRead) {
+        this.sharedRead = sharedRead;
+    }
+
+    public synchronized void setPatternCacheHits(long patternCacheHits) {
+        this.patternCacheHits = patternCacheHits;
+    }
+
+    public synchronized void setPatternCacheMisses(long patternCacheMisses) {
+        this.patternCacheMisses = patternCacheMisses;
+    }
+
+}
@@ -0,0 +1,366 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Extraction counters aggregated across all builds since Jenkins started, per extractor type
+ * and per job. Updated concurrently by the builds with atomic counters, without locks.
+ * 
+ * The extractors which share a read are all counted as a run, but the time and the bytes of
+ * the read are split between them so that the totals count them once. Only the
+ * {@link #MAX_JOBS} jobs which ran most recently are kept.
+ */
+@ExportedBean
+public class ExtractionStatistics {
+
+    /** upper bounds (in ms, inclusive) of the latency histogram buckets, the last one is open */
+    public static final long[] LATENCY_BUCKETS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000,
+            2000, 5000, 10000, 30000, 60000 };
+
+    public static final int MAX_JOBS = 500;
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final ConcurrentMap<String, Counters> byExtractor =
+            new ConcurrentHashMap<String, Counters>();
+    private final ConcurrentMap<String, Counters> byJob =
+            new ConcurrentHashMap<String, Counters>();
+    private volatile long since = System.currentTimeMillis();
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * Records one extractor run of <code>job</code>.
+     */
+    public void record(String job, ExtractionMetrics metrics, boolean failed) {
+        record(job, Collections.singletonList(metrics), failed);
+    }
+
+    /**
+     * Records the run of a group of extractors of <code>job</code> which shared a single read.
+     * The metrics of each extractor hold the duration and the bytes of the whole read.
+     */
+    public void record(String job, List<ExtractionMetrics> group, boolean failed) {
+        Counters jobCounters = get(byJob, job);
+        int size = group.size();
+        for (int i = 0; i < size; i++) {
+            ExtractionMetrics metrics = group.get(i);
+            long millis = share(metrics.getDuration(), i, size);
+            long bytes = share(metrics.getBytes(), i, size);
+            get(byExtractor, metrics.getExtractor()).record(metrics, failed, millis, bytes);
+            jobCounters.record(metrics, failed, millis, bytes);
+        }
+        if (byJob.size() > MAX_JOBS) {
+            pruneJobs();
+        }
+    }
+
+    public void reset() {
+        byExtractor.clear();
+        byJob.clear();
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * Writes all the counters as CSV, one line per extractor type and per job.
+     */
+    public void writeCsv(PrintWriter out) {
+        out.print("scope,name,runs,failures,cacheHits,totalMillis,maxMillis,bytes,readMillis,"
+                + "matches");
+        for (long bucket : LATENCY_BUCKETS) {
+            out.print(",le" + bucket + "ms");
+        }
+        out.println(",more");
+        for (Counters counters : getExtractors()) {
+            counters.writeCsv(out, "extractor");
+        }
+        for (Counters counters : getJobs()) {
+            counters.writeCsv(out, "job");
+        }
+    }
+
+    /***********
+     * GETTERS *
+     ***********/
+
+    /**
+     * @return the time at which the counters started, in milliseconds since the epoch.
+     */
+    @Exported
+    public long getSince() {
+        return since;
+    }
+
+    public Date getSinceDate() {
+        return new Date(since);
+    }
+
+    /**
+     * @return the hits of the pattern cache of the master. The ones of the nodes are in the
+     *         metrics of each build.
+     */
+    @Exported
+    public long getPatternCacheHits() {
+        return PatternCache.getInstance().getHitCount();
+    }
+
+    @Exported
+    public long getPatternCacheMisses() {
+        return PatternCache.getInstance().getMissCount();
+    }
+
+    @Exported
+    public int getPatternCacheSize() {
+        return PatternCache.getInstance().getSize();
+    }
+
+    @Exported
+    public List<Counters> getExtractors() {
+        return sorted(byExtractor);
+    }
+
+    @Exported
+    public List<Counters> getJobs() {
+        return sorted(byJob);
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static Counters get(ConcurrentMap<String, Counters> map, String name) {
+        Counters counters = map.get(name);
+        if (counters == null) {
+            Counters created = new Counters(name);
+            counters = map.putIfAbsent(name, created);
+            if (counters == null) {
+                counters = created;
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * @return the part of <code>total</code> of the <code>index</code>th of <code>size</code>
+     *         extractors, the remainder going to the first ones.
+     */
+    private static long share(long total, int index, int size) {
+        return total / size + (index < total % size ? 1 : 0);
+    }
+
+    /**
+     * Forgets the jobs which did not run for the longest time, until at most {@link #MAX_JOBS}
+     * are left.
+     */
+    private void pruneJobs() {
+        synchronized (byJob) {
+            while (byJob.size() > MAX_JOBS) {
+                Counters oldest = null;
+                for (Counters counters : byJob.values()) {
+                    if (oldest == null || counters.lastRun < oldest.lastRun) {
+                        oldest = counters;
+                    }
+                }
+                byJob.remove(oldest.getName(), oldest);
+            }
+        }
+    }
+
+    private static List<Counters> sorted(ConcurrentMap<String, Counters> map) {
+        List<Counters> list = new ArrayList<Counters>(map.values());
+        Collections.sort(list);
+        return list;
+    }
+
+    /************
+     * COUNTERS *
+     ************/
+
+    /**
+     * The counters of one extractor type or one job.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class Counters implements Comparable<Counters> {
+
+        private final String name;
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        /** time of the runs which read their input, cache hits read nothing */
+        private final AtomicLong readMillis = new AtomicLong();
+        private final AtomicLong matches = new AtomicLong();
+        /** one more bucket than bounds for the slower runs */
+        private final AtomicLongArray latencies = new AtomicLongArray(
+                LATENCY_BUCKETS.length + 1);
+        private volatile long lastRun;
+
+        public Counters(String name) {
+            this.name = name;
+        }
+
+        /**
+         * The latency is the one of the whole read, <code>millis</code> and <code>bytes</code>
+         * are the parts of this run in the totals.
+         */
+        void record(ExtractionMetrics metrics, boolean failed, long millis, long bytes) {
+            long duration = metrics.getDuration();
+            lastRun = System.nanoTime();
+            runs.incrementAndGet();
+            if (failed) {
+                failures.incrementAndGet();
+            }
+            if (metrics.isCacheHit()) {
+                cacheHits.incrementAndGet();
+            } else {
+                readMillis.addAndGet(millis);
+                this.bytes.addAndGet(bytes);
+            }
+            totalMillis.addAndGet(millis);
+            matches.addAndGet(metrics.getMatches());
+            long max;
+            while (duration > (max = maxMillis.get()) && !maxMillis.compareAndSet(max, duration)) {
+                /* retry */
+            }
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS.length && duration > LATENCY_BUCKETS[bucket]) {
+                bucket++;
+            }
+            latencies.incrementAndGet(bucket);
+        }
+
+        void writeCsv(PrintWriter out, String scope) {
+            out.print(scope + ",\"" + name.replace("\"", "\"\"") + "\"," + getRuns() + ","
+                    + getFailures() + "," + getCacheHits() + "," + getTotalMillis() + ","
+                    + getMaxMillis() + "," + getBytes() + "," + getReadMillis() + ","
+                    + getMatches());
+            for (long count : getLatencyHistogram()) {
+                out.print("," + count);
+            }
+            out.println();
+        }
+
+        public int compareTo(Counters other) {
+            return name.compareTo(other.name);
+        }
+
+        @Exported
+        public String getName() {
+            return name;
+        }
+
+        @Exported
+        public long getRuns() {
+            return runs.get();
+        }
+
+        @Exported
+        public long getFailures() {
+            return failures.get();
+        }
+
+        @Exported
+        public long getCacheHits() {
+            return cacheHits.get();
+        }
+
+        @Exported
+        public long getTotalMillis() {
+            return totalMillis.get();
+        }
+
+        @Exported
+        public long getMaxMillis() {
+            return maxMillis.get();
+        }
+
+        public long getAverageMillis() {
+            long count = getRuns();
+            return count > 0 ? getTotalMillis() / count : 0;
+        }
+
+        /**
+         * @return the bytes read by the runs which missed the cache.
+         */
+        @Exported
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        /**
+         * @return the time of the runs which missed the cache.
+         */
+        @Exported
+        public long getReadMillis() {
+            return readMillis.get();
+        }
+
+        /**
+         * @return the bytes processed per second of extraction, cache hits left out.
+         */
+        public long getThroughput() {
+            long millis = getReadMillis();
+            return millis > 0 ? getBytes() * 1000 / millis : 0;
+        }
+
+        @Exported
+        public long getMatches() {
+            return matches.get();
+        }
+
+        /**
+         * @return the number of runs in each bucket of {@link ExtractionStatistics#LATENCY_BUCKETS}
+         *         and the number of slower runs.
+         */
+        @Exported
+        public long[] getLatencyHistogram() {
+            long[] histogram = new long[latencies.length()];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = latencies.get(i);
+            }
+            return histogram;
+        }
+    }
+
+}
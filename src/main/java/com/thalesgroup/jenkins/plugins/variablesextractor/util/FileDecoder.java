@@ -0,0 +1,129 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decodes files with an explicit charset. Malformed input is replaced (like
+ * {@link java.io.FileReader}) instead of failing.
+ */
+public class FileDecoder {
+
+    /**
+     * Mapped files stay locked on Windows until the buffer is garbage collected, which would
+     * prevent the workspace from being cleaned: they are read into the heap instead.
+     */
+    private static final boolean MAP_FILES = File.separatorChar == '/';
+
+    private FileDecoder() {
+    }
+
+    /**
+     * @return the charset with the given name, or the default charset of the JVM if
+     *         <code>name</code> is null or empty.
+     */
+    public static Charset forName(String name) {
+        if (name == null || name.trim().length() == 0) {
+            return Charset.defaultCharset();
+        }
+        return Charset.forName(name.trim());
+    }
+
+    /**
+     * Decodes the whole file in one pass, from a memory-mapped buffer when possible. The
+     * returned buffer can be matched directly as a {@link CharSequence}.
+     */
+    public static CharBuffer decode(File file, Charset charset) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large to be read at once, use streaming: "
+                        + file);
+            }
+            ByteBuffer bytes;
+            if (MAP_FILES) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                bytes = ByteBuffer.allocate((int) size);
+                while (bytes.hasRemaining() && channel.read(bytes) != -1) {
+                    /* read until the end */
+                }
+                bytes.flip();
+            }
+            return newDecoder(charset).decode(bytes);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Decodes a whole stream in one pass, for the content which is not a plain file (e.g. an
+     * archive entry). The stream is not closed.
+     */
+    public static CharBuffer decode(InputStream in, Charset charset) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, length);
+        }
+        return newDecoder(charset).decode(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * @return a reader decoding <code>file</code> incrementally.
+     */
+    public static Reader newReader(File file, Charset charset) throws IOException {
+        return newReader(new FileInputStream(file), charset);
+    }
+
+    /**
+     * @return a reader decoding <code>in</code> incrementally.
+     */
+    public static Reader newReader(InputStream in, Charset charset) {
+        return new InputStreamReader(in, newDecoder(charset));
+    }
+
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+}
@@ -0,0 +1,154 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+
+/**
+ * Finds the files matching Ant patterns (comma separated, with the default excludes), like
+ * <code>FilePath.list(String)</code>, but stops as soon as <code>limit</code> files are found and
+ * does not enter the directories which cannot contain a matching file.
+ * 
+ * Must be used on the node holding the files.
+ */
+public class FileFinder {
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final String[] includes;
+    private final String[] excludes;
+    private final int limit;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    public FileFinder(String includes, int limit) {
+        List<String> patterns = new ArrayList<String>();
+        for (String include : includes.split(",")) {
+            if (include.trim().length() > 0) {
+                patterns.add(normalize(include.trim()));
+            }
+        }
+        this.includes = patterns.toArray(new String[patterns.size()]);
+        this.excludes = DirectoryScanner.getDefaultExcludes();
+        for (int i = 0; i < excludes.length; i++) {
+            excludes[i] = normalize(excludes[i]);
+        }
+        this.limit = limit;
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * @return at most <code>limit</code> files under <code>baseDir</code>, in no particular order.
+     */
+    public List<File> find(File baseDir) throws IOException {
+        List<File> found = new ArrayList<File>();
+        walk(baseDir, "", found, new HashSet<String>());
+        return found;
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    /**
+     * @return true when the limit is reached.
+     */
+    private boolean walk(File dir, String path, List<File> found, Set<String> visited)
+            throws IOException
+    {
+        /* symbolic links are followed, do not loop */
+        if (!visited.add(dir.getCanonicalPath())) {
+            return false;
+        }
+        String[] names = dir.list();
+        if (names == null) {
+            return false;
+        }
+        for (String name : names) {
+            String childPath = path.length() == 0 ? name : path + File.separator + name;
+            if (matchesAny(excludes, childPath)) {
+                continue;
+            }
+            File child = new File(dir, name);
+            if (child.isDirectory()) {
+                if (couldContainMatches(childPath) && walk(child, childPath, found, visited)) {
+                    return true;
+                }
+            } else if (matchesAny(includes, childPath)) {
+                found.add(child);
+                if (found.size() >= limit) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean couldContainMatches(String dirPath) {
+        for (String include : includes) {
+            if (SelectorUtils.matchPatternStart(include, dirPath, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesAny(String[] patterns, String path) {
+        for (String pattern : patterns) {
+            if (SelectorUtils.matchPath(pattern, path, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same normalization as Ant: any separator is accepted and a trailing one means "**".
+     */
+    private static String normalize(String pattern) {
+        String normalized = pattern.replace('/', File.separatorChar).replace('\\',
+                File.separatorChar);
+        if (normalized.endsWith(File.separator)) {
+            normalized += "**";
+        }
+        return normalized;
+    }
+
+}
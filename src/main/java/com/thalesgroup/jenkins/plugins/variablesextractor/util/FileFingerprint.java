@@ -0,0 +1,121 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import hudson.Util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+
+/**
+ * Identifies a version of a file by its modification time, its size and optionally the MD5
+ * digest of its content. Computed on the node holding the file.
+ */
+public class FileFingerprint implements Serializable {
+
+    private static final long serialVersionUID = 5712964781035472306L;
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final long lastModified;
+    private final long length;
+    private final String digest;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    public FileFingerprint(long lastModified, long length, String digest) {
+        this.lastModified = lastModified;
+        this.length = length;
+        this.digest = digest;
+    }
+
+    /**
+     * @return the fingerprint of <code>file</code>, or null if it is not a regular file.
+     */
+    public static FileFingerprint of(File file, boolean withDigest) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        String digest = null;
+        if (withDigest) {
+            InputStream is = new FileInputStream(file);
+            try {
+                digest = Util.getDigestOf(is);
+            } finally {
+                is.close();
+            }
+        }
+        return new FileFingerprint(file.lastModified(), file.length(), digest);
+    }
+
+    /************
+     * OVERRIDE *
+     ************/
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof FileFingerprint)) {
+            return false;
+        }
+        FileFingerprint other = (FileFingerprint) obj;
+        return lastModified == other.lastModified && length == other.length
+                && (digest == null ? other.digest == null : digest.equals(other.digest));
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (lastModified ^ (lastModified >>> 32)) * 31 + (int) length;
+    }
+
+    @Override
+    public String toString() {
+        return "lastModified=" + lastModified + ", length=" + length
+                + (digest != null ? ", md5=" + digest : "");
+    }
+
+    /***********
+     * GETTERS *
+     ***********/
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+}
@@ -0,0 +1,68 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+/**
+ * Which file to use when several files match the file name pattern.
+ */
+public enum FileSelection {
+
+    /** the extraction fails */
+    FAIL("Fail"),
+    /** the file with the most recent modification time */
+    NEWEST("Newest file"),
+    /** the file with the highest version, taken from a named group */
+    HIGHEST_VERSION("Highest version"),
+    /** the last file name in alphabetical order */
+    LAST_NAME("Last file name"),
+    /** every file is published as indexed variables (NAME_0, NAME_1, ..., NAME_COUNT) */
+    ALL("All files (indexed variables)");
+
+    private final String displayName;
+
+    private FileSelection(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return the selection with the given name, or {@link #FAIL} if unknown (older
+     *         configurations).
+     */
+    public static FileSelection fromString(String name) {
+        if (name != null) {
+            for (FileSelection selection : values()) {
+                if (selection.name().equals(name)) {
+                    return selection;
+                }
+            }
+        }
+        return FAIL;
+    }
+
+}
@@ -0,0 +1,77 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.util.Map;
+
+import com.google.code.regexp.NamedMatcher;
+import com.google.code.regexp.NamedPattern;
+
+/**
+ * A pattern of the {@link RegexEngine#JAVA} engine: a {@link NamedPattern}.
+ */
+public class JavaPattern implements CompiledPattern {
+
+    private final NamedPattern pattern;
+
+    public JavaPattern(NamedPattern pattern) {
+        this.pattern = pattern;
+    }
+
+    public PatternMatcher matcher(CharSequence input) {
+        final NamedMatcher matcher = pattern.matcher(input);
+        return new PatternMatcher() {
+
+            public boolean find() {
+                return matcher.find();
+            }
+
+            public boolean find(int start) {
+                return matcher.find(start);
+            }
+
+            public int start() {
+                return matcher.start();
+            }
+
+            public int end() {
+                return matcher.end();
+            }
+
+            public boolean hitEnd() {
+                return matcher.hitEnd();
+            }
+
+            public Map<String, String> namedGroups() {
+                return matcher.namedGroups();
+            }
+        };
+    }
+
+    public NamedPattern getNamedPattern() {
+        return pattern;
+    }
+
+}
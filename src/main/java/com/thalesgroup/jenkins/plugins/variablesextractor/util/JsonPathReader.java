@@ -0,0 +1,419 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the values of simple paths from a JSON document with a streaming tokenizer, and stops
+ * as soon as all of them are resolved. The parts of the document which cannot lead to a
+ * requested path are only tokenized, no string is built for them.
+ * 
+ * Paths are made of member names and array indexes: <code>$.version</code>,
+ * <code>modules[0].name</code>, <code>$['key.with.dots']</code>. They must lead to a string,
+ * a number or a boolean; <code>null</code>, objects and arrays are not resolved.
+ * 
+ * Documents nested deeper than {@link #MAX_DEPTH} objects and arrays are rejected, so that the
+ * recursive tokenizer cannot overflow the stack.
+ */
+public class JsonPathReader {
+
+    public static final PathMappings.Normalizer NORMALIZER = new PathMappings.Normalizer() {
+
+        private static final long serialVersionUID = -2411553596096493406L;
+
+        public String normalize(String path) {
+            return JsonPathReader.normalize(path);
+        }
+    };
+
+    /** maximum number of nested objects and arrays */
+    public static final int MAX_DEPTH = 512;
+
+    private static final String ROOT = "$";
+    private static final int NONE = -2;
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final PathMappings mappings;
+    /** requested paths and all their parents */
+    private final Set<String> prefixes = new HashSet<String>();
+
+    private Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private long offset;
+    private int peeked = NONE;
+    private int depth;
+    private Map<String, String> values;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    public JsonPathReader(PathMappings mappings) {
+        this.mappings = mappings;
+        for (String path : mappings.getPaths()) {
+            for (int i = 1; i < path.length(); i++) {
+                char c = path.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == '.' || c == '[') {
+                    prefixes.add(path.substring(0, i));
+                }
+            }
+            prefixes.add(path);
+        }
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * @return <code>path</code> in the form used to match the document:
+     *         <code>$.name[index]</code> with the dots, brackets and backslashes of the names
+     *         escaped.
+     * @throws IllegalArgumentException
+     *             when the path is not supported.
+     */
+    public static String normalize(String path) {
+        String expression = path.trim();
+        StringBuilder normalized = new StringBuilder(ROOT);
+        int i = 0;
+        if (expression.startsWith(ROOT)) {
+            i = 1;
+        } else if (expression.length() > 0 && expression.charAt(0) != '[') {
+            /* implicit "$." */
+            expression = "." + expression;
+        }
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (c == '.') {
+                int end = i + 1;
+                while (end < expression.length() && expression.charAt(end) != '.'
+                        && expression.charAt(end) != '[')
+                {
+                    end++;
+                }
+                appendMember(normalized, expression.substring(i + 1, end), path);
+                i = end;
+            } else if (c == '[' && i + 1 < expression.length()
+                    && (expression.charAt(i + 1) == '\'' || expression.charAt(i + 1) == '"'))
+            {
+                char quote = expression.charAt(i + 1);
+                int end = expression.indexOf(quote, i + 2);
+                if (end < 0 || end + 1 >= expression.length()
+                        || expression.charAt(end + 1) != ']')
+                {
+                    throw unsupported(path);
+                }
+                appendMember(normalized, expression.substring(i + 2, end), path);
+                i = end + 2;
+            } else if (c == '[') {
+                int end = expression.indexOf(']', i);
+                if (end < 0) {
+                    throw unsupported(path);
+                }
+                try {
+                    int index = Integer.parseInt(expression.substring(i + 1, end).trim());
+                    if (index < 0) {
+                        throw unsupported(path);
+                    }
+                    normalized.append('[').append(index).append(']');
+                } catch (NumberFormatException e) {
+                    throw unsupported(path);
+                }
+                i = end + 1;
+            } else {
+                throw unsupported(path);
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * @return the values of the resolved paths.
+     */
+    public Map<String, String> read(Reader reader) throws IOException {
+        this.in = reader;
+        this.values = new LinkedHashMap<String, String>();
+        this.depth = 0;
+        int c = nextNonSpace();
+        if (c == '\uFEFF') {
+            /* byte order mark */
+            c = nextNonSpace();
+        }
+        if (c != -1) {
+            value(c, prefixes.contains(ROOT) ? ROOT : null);
+        }
+        return values;
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static void appendMember(StringBuilder normalized, String name, String path) {
+        if (name.length() == 0 || "*".equals(name)) {
+            throw unsupported(path);
+        }
+        normalized.append('.');
+        escape(name, normalized);
+    }
+
+    private static void escape(String name, StringBuilder out) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '.' || c == '[' || c == '\\') {
+                out.append('\\');
+            }
+            out.append(c);
+        }
+    }
+
+    private static IllegalArgumentException unsupported(String path) {
+        return new IllegalArgumentException("Unsupported JSON path: " + path
+                + " ($.name[index].name expected)");
+    }
+
+    private boolean isDone() {
+        return values.size() >= mappings.size();
+    }
+
+    /**
+     * @param path
+     *            the normalized path of the value, or null when it cannot lead to a requested
+     *            path.
+     */
+    private void value(int c, String path) throws IOException {
+        boolean requested = path != null && mappings.contains(path)
+                && !values.containsKey(path);
+        switch (c) {
+        case '{':
+        case '[':
+            if (++depth > MAX_DEPTH) {
+                throw invalid("more than " + MAX_DEPTH + " nested objects and arrays");
+            }
+            if (c == '{') {
+                object(path);
+            } else {
+                array(path);
+            }
+            depth--;
+            break;
+        case '"':
+            String string = string(requested);
+            if (requested) {
+                values.put(path, string);
+            }
+            break;
+        default:
+            String literal = literal(c);
+            if (requested && !"null".equals(literal)) {
+                values.put(path, literal);
+            }
+            break;
+        }
+    }
+
+    private void object(String path) throws IOException {
+        int c = nextNonSpace();
+        if (c == '}') {
+            return;
+        }
+        while (true) {
+            if (c != '"') {
+                throw invalid("member name expected");
+            }
+            String name = string(path != null);
+            expect(':');
+            String child = null;
+            if (path != null) {
+                StringBuilder childPath = new StringBuilder(path).append('.');
+                escape(name, childPath);
+                child = childPath.toString();
+                if (!prefixes.contains(child)) {
+                    child = null;
+                }
+            }
+            value(nextNonSpace(), child);
+            if (isDone()) {
+                return;
+            }
+            c = nextNonSpace();
+            if (c == '}') {
+                return;
+            } else if (c != ',') {
+                throw invalid("',' or '}' expected");
+            }
+            c = nextNonSpace();
+        }
+    }
+
+    private void array(String path) throws IOException {
+        int c = nextNonSpace();
+        if (c == ']') {
+            return;
+        }
+        for (int index = 0;; index++) {
+            String child = null;
+            if (path != null) {
+                child = path + "[" + index + "]";
+                if (!prefixes.contains(child)) {
+                    child = null;
+                }
+            }
+            value(c, child);
+            if (isDone()) {
+                return;
+            }
+            c = nextNonSpace();
+            if (c == ']') {
+                return;
+            } else if (c != ',') {
+                throw invalid("',' or ']' expected");
+            }
+            c = nextNonSpace();
+        }
+    }
+
+    /**
+     * Reads a string after its opening quote.
+     * 
+     * @return the string, or null if <code>keep</code> is false.
+     */
+    private String string(boolean keep) throws IOException {
+        StringBuilder string = keep ? new StringBuilder() : null;
+        while (true) {
+            int c = next();
+            if (c == -1) {
+                throw invalid("unterminated string");
+            } else if (c == '"') {
+                return keep ? string.toString() : null;
+            } else if (c == '\\') {
+                c = next();
+                switch (c) {
+                case 'b':
+                    c = '\b';
+                    break;
+                case 'f':
+                    c = '\f';
+                    break;
+                case 'n':
+                    c = '\n';
+                    break;
+                case 'r':
+                    c = '\r';
+                    break;
+                case 't':
+                    c = '\t';
+                    break;
+                case 'u':
+                    c = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(next(), 16);
+                        if (digit < 0) {
+                            throw invalid("malformed \\uxxxx escape");
+                        }
+                        c = c * 16 + digit;
+                    }
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    break;
+                default:
+                    throw invalid("invalid escape");
+                }
+            }
+            if (keep) {
+                string.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Reads a number, <code>true</code>, <code>false</code> or <code>null</code>.
+     */
+    private String literal(int first) throws IOException {
+        StringBuilder literal = new StringBuilder();
+        int c = first;
+        while (c != -1 && (Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.')) {
+            literal.append((char) c);
+            c = next();
+        }
+        peeked = c;
+        if (literal.length() == 0) {
+            throw invalid("value expected");
+        }
+        return literal.toString();
+    }
+
+    private void expect(char expected) throws IOException {
+        if (nextNonSpace() != expected) {
+            throw invalid("'" + expected + "' expected");
+        }
+    }
+
+    private int nextNonSpace() throws IOException {
+        int c;
+        do {
+            c = next();
+        } while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+        return c;
+    }
+
+    private int next() throws IOException {
+        if (peeked != NONE) {
+            int c = peeked;
+            peeked = NONE;
+            return c;
+        }
+        if (position == limit) {
+            limit = in.read(buffer);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        offset++;
+        return buffer[position++];
+    }
+
+    private IOException invalid(String message) {
+        return new IOException("Invalid JSON at char " + offset + ": " + message);
+    }
+
+}
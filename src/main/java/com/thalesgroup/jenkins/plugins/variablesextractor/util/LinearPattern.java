@@ -0,0 +1,1194 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.google.code.regexp.NamedPattern;
+
+/**
+ * Regular expressions matched in a time proportional to the length of the input, whatever the
+ * pattern and the input. The pattern is compiled to a small program run as a Pike VM: all the
+ * paths of the automaton are followed in a single pass over the input instead of being tried one
+ * after the other, so there is no backtracking.
+ * 
+ * The matches are the ones of java.util.regex (leftmost match, same priorities for
+ * alternations, greedy and lazy quantifiers) for the supported constructs: literals, escapes,
+ * char classes with ranges and <code>\d \w \s</code>, <code>. ^ $ \b \B \A \z \Z</code>,
+ * capturing, named (<code>(?P&lt;NAME&gt;...)</code>) and non-capturing groups, alternations,
+ * greedy and lazy quantifiers, <code>\Q...\E</code> and the <code>i d m s u x</code> flags.
+ * The only difference is for a repeated group which can match an empty string: an empty
+ * iteration does not end the repetition, as in RE2.
+ * 
+ * Back-references, look-arounds, atomic groups, possessive quantifiers, <code>\G</code>,
+ * Unicode properties, nested classes and supplementary chars are rejected with a
+ * {@link PatternSyntaxException}.
+ */
+public class LinearPattern implements CompiledPattern {
+
+    /** bounds the work done per input char */
+    public static final int MAX_PROGRAM_SIZE = 10000;
+
+    /* instructions */
+    private static final int CHAR = 0;
+    private static final int CLASS = 1;
+    private static final int ANY = 2;
+    private static final int SPLIT = 3;
+    private static final int JMP = 4;
+    private static final int SAVE = 5;
+    private static final int ASSERT = 6;
+    private static final int MATCH = 7;
+
+    /* assertions */
+    private static final int INPUT_START = 0;
+    private static final int INPUT_END = 1;
+    private static final int INPUT_END_LINE = 2;
+    private static final int LINE_START = 3;
+    private static final int LINE_END = 4;
+    private static final int WORD_BOUNDARY = 5;
+    private static final int NOT_WORD_BOUNDARY = 6;
+
+    /* case folding of literals and classes */
+    private static final int FOLD_NONE = 0;
+    private static final int FOLD_ASCII = 1;
+    private static final int FOLD_UNICODE = 2;
+
+    private static final int MAX_CHAR = 0xFFFF;
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final List<String> groupNames;
+    private final int[] ops;
+    private final int[] args;
+    private final int[] args2;
+    private final CharClass[] classes;
+    /** skips the input where no match can start, may be null */
+    private final LiteralPrefilter prefilter;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    private LinearPattern(List<String> groupNames, Program program, LiteralPrefilter prefilter) {
+        this.groupNames = Collections.unmodifiableList(groupNames);
+        this.ops = Arrays.copyOf(program.ops, program.size);
+        this.args = Arrays.copyOf(program.args, program.size);
+        this.args2 = Arrays.copyOf(program.args2, program.size);
+        this.classes = program.classes.toArray(new CharClass[program.classes.size()]);
+        this.prefilter = prefilter;
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * @param flags
+     *            flags of {@link Pattern}.
+     * @throws PatternSyntaxException
+     *             if the pattern is invalid or uses a construct which is not supported.
+     */
+    public static LinearPattern compile(String regex, int flags) {
+        /* same syntax errors as the Java engine */
+        NamedPattern.compile(regex, flags);
+        if ((flags & (Pattern.LITERAL | Pattern.CANON_EQ | Pattern.UNICODE_CHARACTER_CLASS)) != 0)
+        {
+            throw new PatternSyntaxException("Flags not supported by the linear engine", regex, 0);
+        }
+        Parser parser = new Parser(regex, flags);
+        Node root = parser.parse();
+        Program program = new Program(regex);
+        program.emit(SAVE, 0, 0);
+        root.emit(program);
+        program.emit(SAVE, 1, 0);
+        program.emit(MATCH, 0, 0);
+        return new LinearPattern(parser.names, program, LiteralPrefilter.of(regex, flags));
+    }
+
+    public PatternMatcher matcher(CharSequence input) {
+        return new LinearMatcher(input);
+    }
+
+    public List<String> getGroupNames() {
+        return groupNames;
+    }
+
+    /**
+     * @return the number of instructions of the compiled program.
+     */
+    public int getProgramSize() {
+        return ops.length;
+    }
+
+    /***********
+     * MATCHER *
+     ***********/
+
+    private final class LinearMatcher implements PatternMatcher {
+
+        private final CharSequence input;
+        private final int slots = 2 * (groupNames.size() + 1);
+        private Threads current = new Threads(ops.length);
+        private Threads next = new Threads(ops.length);
+        private final int[] stackPcs = new int[ops.length + 1];
+        private final int[][] stackCaps = new int[ops.length + 1][];
+        /** group boundaries of the last match, null if none */
+        private int[] match;
+        private boolean hitEnd;
+
+        LinearMatcher(CharSequence input) {
+            this.input = input;
+        }
+
+        public boolean find() {
+            int from = 0;
+            if (match != null) {
+                from = match[1] == match[0] ? match[1] + 1 : match[1];
+            }
+            if (from > input.length()) {
+                match = null;
+                hitEnd = true;
+                return false;
+            }
+            return search(from);
+        }
+
+        public boolean find(int start) {
+            if (start < 0 || start > input.length()) {
+                throw new IndexOutOfBoundsException("Illegal start index");
+            }
+            return search(start);
+        }
+
+        public int start() {
+            checkMatch();
+            return match[0];
+        }
+
+        public int end() {
+            checkMatch();
+            return match[1];
+        }
+
+        public boolean hitEnd() {
+            return hitEnd;
+        }
+
+        public Map<String, String> namedGroups() {
+            checkMatch();
+            Map<String, String> groups = new LinkedHashMap<String, String>();
+            for (int i = 0; i < groupNames.size(); i++) {
+                int start = match[2 * i + 2];
+                int end = match[2 * i + 3];
+                groups.put(groupNames.get(i), start >= 0 && end >= 0 ? input.subSequence(start,
+                        end).toString() : null);
+            }
+            return groups;
+        }
+
+        private void checkMatch() {
+            if (match == null) {
+                throw new IllegalStateException("No match available");
+            }
+        }
+
+        /**
+         * Runs all the threads in lockstep, one input char at a time. Threads are kept in
+         * priority order: when one matches, the threads after it are dropped and no new thread
+         * is started, the ones before it may still find a preferred match.
+         */
+        private boolean search(int from) {
+            int length = input.length();
+            int[] matched = null;
+            hitEnd = false;
+            current.clear();
+            for (int i = from;; i++) {
+                if (matched == null) {
+                    if (current.size == 0 && prefilter != null) {
+                        int candidate = prefilter.indexOf(input, i);
+                        if (candidate < 0) {
+                            hitEnd = true;
+                            break;
+                        }
+                        i = candidate;
+                    }
+                    add(current, 0, i, newCaps());
+                }
+                if (current.size == 0) {
+                    if (matched != null || i >= length) {
+                        break;
+                    }
+                    /* no match can start here, e.g. a failed anchor */
+                    current.clear();
+                    continue;
+                }
+                next.clear();
+                char c = i < length ? input.charAt(i) : 0;
+                for (int t = 0; t < current.size; t++) {
+                    int pc = current.pcs[t];
+                    int op = ops[pc];
+                    if (op == MATCH) {
+                        matched = current.caps[t];
+                        break;
+                    } else if (i >= length) {
+                        /* this thread needs more input */
+                        hitEnd = true;
+                    } else if ((op == CHAR && sameChar(c, args[pc], args2[pc]))
+                            || (op == CLASS && classes[args[pc]].matches(c))
+                            || (op == ANY && (args[pc] != 0 || !isLineTerminator(c,
+                                    args2[pc] != 0))))
+                    {
+                        add(next, pc + 1, i + 1, current.caps[t]);
+                    }
+                }
+                Threads swap = current;
+                current = next;
+                next = swap;
+                if (i >= length) {
+                    break;
+                }
+            }
+            if (matched == null) {
+                hitEnd = true;
+            }
+            match = matched;
+            return matched != null;
+        }
+
+        /**
+         * Adds the thread at <code>pc</code> to <code>list</code>, following the instructions
+         * which do not consume input. An instruction already reached at this position by a
+         * thread with a higher priority is not followed again.
+         */
+        private void add(Threads list, int pc, int position, int[] caps) {
+            int sp = 0;
+            stackPcs[sp] = pc;
+            stackCaps[sp++] = caps;
+            while (sp > 0) {
+                int threadPc = stackPcs[--sp];
+                int[] threadCaps = stackCaps[sp];
+                follow: while (list.mark(threadPc)) {
+                    switch (ops[threadPc]) {
+                    case JMP:
+                        threadPc = args[threadPc];
+                        break;
+                    case SPLIT:
+                        stackPcs[sp] = args2[threadPc];
+                        stackCaps[sp++] = threadCaps;
+                        threadPc = args[threadPc];
+                        break;
+                    case SAVE:
+                        threadCaps = threadCaps.clone();
+                        threadCaps[args[threadPc]] = position;
+                        threadPc++;
+                        break;
+                    case ASSERT:
+                        if (!check(args[threadPc], args2[threadPc] != 0, position)) {
+                            break follow;
+                        }
+                        threadPc++;
+                        break;
+                    default:
+                        list.add(threadPc, threadCaps);
+                        break follow;
+                    }
+                }
+            }
+        }
+
+        private int[] newCaps() {
+            int[] caps = new int[slots];
+            Arrays.fill(caps, -1);
+            return caps;
+        }
+
+        /**
+         * Same rules as java.util.regex, including <code>\r\n</code> being a single line
+         * terminator. Also sets {@link #hitEnd} when the result depends on the end of the
+         * input.
+         */
+        private boolean check(int assertion, boolean unixLines, int i) {
+            int length = input.length();
+            if (i >= length - (assertion == INPUT_END_LINE ? 2 : 0) && assertion != INPUT_START)
+            {
+                /* more input could change the result */
+                hitEnd = true;
+            }
+            switch (assertion) {
+            case INPUT_START:
+                return i == 0;
+            case INPUT_END:
+                return i == length;
+            case INPUT_END_LINE:
+                if (unixLines) {
+                    return i == length || (i == length - 1 && input.charAt(i) == '\n');
+                }
+                if (i < length - 2) {
+                    return false;
+                } else if (i == length - 2) {
+                    return input.charAt(i) == '\r' && input.charAt(i + 1) == '\n';
+                }
+                return i == length || isLineEnd(i);
+            case LINE_END:
+                if (unixLines) {
+                    return i == length || input.charAt(i) == '\n';
+                }
+                return i == length || isLineEnd(i);
+            case LINE_START:
+                if (i == length) {
+                    return false;
+                } else if (i == 0) {
+                    return true;
+                } else if (unixLines) {
+                    return input.charAt(i - 1) == '\n';
+                }
+                char previous = input.charAt(i - 1);
+                return isLineTerminator(previous, false)
+                        && !(previous == '\r' && input.charAt(i) == '\n');
+            case WORD_BOUNDARY:
+                return isWord(i - 1) != isWord(i);
+            case NOT_WORD_BOUNDARY:
+                return isWord(i - 1) == isWord(i);
+            default:
+                throw new IllegalStateException("Unknown assertion: " + assertion);
+            }
+        }
+
+        /**
+         * @return true if a line terminator starts at <code>i</code> (not between \r and \n).
+         */
+        private boolean isLineEnd(int i) {
+            char c = input.charAt(i);
+            if (c == '\n') {
+                return i == 0 || input.charAt(i - 1) != '\r';
+            }
+            return isLineTerminator(c, false);
+        }
+
+        private boolean isWord(int i) {
+            if (i < 0 || i >= input.length()) {
+                return false;
+            }
+            char c = input.charAt(i);
+            return c == '_' || Character.isLetterOrDigit(c);
+        }
+    }
+
+    /**
+     * Instructions reached at the current position, in priority order, with their group
+     * boundaries.
+     */
+    private static final class Threads {
+
+        final int[] pcs;
+        final int[][] caps;
+        int size;
+        /** instructions reached during the current generation */
+        private final int[] marks;
+        private int generation;
+
+        Threads(int programSize) {
+            pcs = new int[programSize];
+            caps = new int[programSize][];
+            marks = new int[programSize];
+        }
+
+        void clear() {
+            size = 0;
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * @return false if <code>pc</code> was already reached.
+         */
+        boolean mark(int pc) {
+            if (marks[pc] == generation) {
+                return false;
+            }
+            marks[pc] = generation;
+            return true;
+        }
+
+        void add(int pc, int[] threadCaps) {
+            pcs[size] = pc;
+            caps[size++] = threadCaps;
+        }
+    }
+
+    /*********
+     * CHARS *
+     *********/
+
+    private static boolean sameChar(char c, int literal, int fold) {
+        if (c == literal) {
+            return true;
+        }
+        switch (fold) {
+        case FOLD_ASCII:
+            return c < 0x80 && literal < 0x80 && toLowerAscii(c) == toLowerAscii(literal);
+        case FOLD_UNICODE:
+            return Character.toUpperCase(c) == Character.toUpperCase(literal)
+                    || Character.toLowerCase(c) == Character.toLowerCase(literal);
+        default:
+            return false;
+        }
+    }
+
+    private static int toLowerAscii(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private static int toUpperAscii(int c) {
+        return c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c;
+    }
+
+    private static boolean isLineTerminator(char c, boolean unixLines) {
+        if (unixLines) {
+            return c == '\n';
+        }
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * A set of char ranges, with a bitmap for US-ASCII.
+     */
+    private static final class CharClass {
+
+        private final int fold;
+        private boolean negated;
+        private final boolean[] ascii = new boolean[0x80];
+        private int[] ranges = new int[8];
+        private int rangeCount;
+
+        CharClass(int fold) {
+            this.fold = fold;
+        }
+
+        void addRange(int low, int high) {
+            for (int c = low; c <= high && c < ascii.length; c++) {
+                ascii[c] = true;
+            }
+            if (high >= ascii.length) {
+                if (2 * rangeCount + 2 > ranges.length) {
+                    ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                }
+                ranges[2 * rangeCount] = Math.max(low, ascii.length);
+                ranges[2 * rangeCount + 1] = high;
+                rangeCount++;
+            }
+        }
+
+        /**
+         * Adds the chars of a predefined class (e.g. \d or \D).
+         */
+        void addAll(int[] predefined, boolean complement) {
+            if (!complement) {
+                for (int i = 0; i < predefined.length; i += 2) {
+                    addRange(predefined[i], predefined[i + 1]);
+                }
+                return;
+            }
+            /* the ranges of the predefined classes are sorted */
+            int low = 0;
+            for (int i = 0; i < predefined.length; i += 2) {
+                if (predefined[i] > low) {
+                    addRange(low, predefined[i] - 1);
+                }
+                low = predefined[i + 1] + 1;
+            }
+            if (low <= MAX_CHAR) {
+                addRange(low, MAX_CHAR);
+            }
+        }
+
+        boolean matches(char c) {
+            boolean found = contains(c);
+            if (!found && fold == FOLD_ASCII && c < 0x80) {
+                found = contains(toLowerAscii(c)) || contains(toUpperAscii(c));
+            } else if (!found && fold == FOLD_UNICODE) {
+                found = contains(Character.toLowerCase(c)) || contains(Character.toUpperCase(c));
+            }
+            return found != negated;
+        }
+
+        private boolean contains(int c) {
+            if (c < ascii.length) {
+                return ascii[c];
+            }
+            for (int i = 0; i < rangeCount; i++) {
+                if (c >= ranges[2 * i] && c <= ranges[2 * i + 1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /***********
+     * PROGRAM *
+     ***********/
+
+    private static final class Program {
+
+        private final String regex;
+        int[] ops = new int[64];
+        int[] args = new int[64];
+        int[] args2 = new int[64];
+        int size;
+        final List<CharClass> classes = new ArrayList<CharClass>();
+
+        Program(String regex) {
+            this.regex = regex;
+        }
+
+        int emit(int op, int arg, int arg2) {
+            if (size == MAX_PROGRAM_SIZE) {
+                throw new PatternSyntaxException("Pattern too large for the linear engine "
+                        + "(reduce the bounded repetitions)", regex, -1);
+            }
+            if (size == ops.length) {
+                ops = Arrays.copyOf(ops, size * 2);
+                args = Arrays.copyOf(args, size * 2);
+                args2 = Arrays.copyOf(args2, size * 2);
+            }
+            ops[size] = op;
+            args[size] = arg;
+            args2[size] = arg2;
+            return size++;
+        }
+
+        void patch(int pc, int arg, int arg2) {
+            args[pc] = arg;
+            args2[pc] = arg2;
+        }
+
+        int addClass(CharClass charClass) {
+            classes.add(charClass);
+            return classes.size() - 1;
+        }
+    }
+
+    /**
+     * Node of the parsed pattern, emitting its instructions.
+     */
+    private abstract static class Node {
+        abstract void emit(Program program);
+    }
+
+    private static final class Instruction extends Node {
+        private final int op;
+        private final int arg;
+        private final int arg2;
+        private final CharClass charClass;
+
+        Instruction(int op, int arg, int arg2) {
+            this(op, arg, arg2, null);
+        }
+
+        Instruction(CharClass charClass) {
+            this(CLASS, 0, 0, charClass);
+        }
+
+        private Instruction(int op, int arg, int arg2, CharClass charClass) {
+            this.op = op;
+            this.arg = arg;
+            this.arg2 = arg2;
+            this.charClass = charClass;
+        }
+
+        @Override
+        void emit(Program program) {
+            program.emit(op, charClass != null ? program.addClass(charClass) : arg, arg2);
+        }
+    }
+
+    private static final class Sequence extends Node {
+        private final List<Node> nodes;
+
+        Sequence(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        void emit(Program program) {
+            for (Node node : nodes) {
+                node.emit(program);
+            }
+        }
+    }
+
+    private static final class Alternation extends Node {
+        private final List<Node> branches;
+
+        Alternation(List<Node> branches) {
+            this.branches = branches;
+        }
+
+        @Override
+        void emit(Program program) {
+            List<Integer> jumps = new ArrayList<Integer>();
+            for (int i = 0; i < branches.size() - 1; i++) {
+                int split = program.emit(SPLIT, 0, 0);
+                branches.get(i).emit(program);
+                jumps.add(program.emit(JMP, 0, 0));
+                program.patch(split, split + 1, program.size);
+            }
+            branches.get(branches.size() - 1).emit(program);
+            for (int jump : jumps) {
+                program.patch(jump, program.size, 0);
+            }
+        }
+    }
+
+    private static final class Group extends Node {
+        private final Node body;
+        private final int index;
+
+        Group(Node body, int index) {
+            this.body = body;
+            this.index = index;
+        }
+
+        @Override
+        void emit(Program program) {
+            program.emit(SAVE, 2 * index, 0);
+            body.emit(program);
+            program.emit(SAVE, 2 * index + 1, 0);
+        }
+    }
+
+    private static final class Repeat extends Node {
+        private final Node body;
+        private final int min;
+        /** -1 for no maximum */
+        private final int max;
+        private final boolean greedy;
+
+        Repeat(Node body, int min, int max, boolean greedy) {
+            this.body = body;
+            this.min = min;
+            this.max = max;
+            this.greedy = greedy;
+        }
+
+        @Override
+        void emit(Program program) {
+            for (int i = 0; i < min; i++) {
+                body.emit(program);
+            }
+            if (max < 0) {
+                int loop = program.emit(SPLIT, 0, 0);
+                body.emit(program);
+                program.emit(JMP, loop, 0);
+                prefer(program, loop, program.size);
+            } else {
+                /* x{0,2} is emitted as (x(x)?)? */
+                List<Integer> splits = new ArrayList<Integer>();
+                for (int i = min; i < max; i++) {
+                    splits.add(program.emit(SPLIT, 0, 0));
+                    body.emit(program);
+                }
+                for (int split : splits) {
+                    prefer(program, split, program.size);
+                }
+            }
+        }
+
+        private void prefer(Program program, int split, int out) {
+            if (greedy) {
+                program.patch(split, split + 1, out);
+            } else {
+                program.patch(split, out, split + 1);
+            }
+        }
+    }
+
+    /**********
+     * PARSER *
+     **********/
+
+    private static final int[] DIGITS = { '0', '9' };
+    private static final int[] WORDS = { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' };
+    private static final int[] SPACES = { '\t', '\r', ' ', ' ' };
+
+    private static final class Parser {
+
+        private final String regex;
+        private int position;
+        private int flags;
+        final List<String> names = new ArrayList<String>();
+
+        Parser(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        Node parse() {
+            Node node = alternation();
+            if (position < regex.length()) {
+                throw error("Unmatched closing ')'");
+            }
+            return node;
+        }
+
+        private Node alternation() {
+            List<Node> branches = new ArrayList<Node>();
+            branches.add(sequence());
+            while (position < regex.length() && regex.charAt(position) == '|') {
+                position++;
+                branches.add(sequence());
+            }
+            return branches.size() == 1 ? branches.get(0) : new Alternation(branches);
+        }
+
+        private Node sequence() {
+            List<Node> nodes = new ArrayList<Node>();
+            while (true) {
+                skipComments();
+                if (position >= regex.length() || regex.charAt(position) == '|'
+                        || regex.charAt(position) == ')')
+                {
+                    break;
+                }
+                if (regex.startsWith("\\Q", position)) {
+                    /* a quantifier after \E only applies to the last quoted char */
+                    int end = regex.indexOf("\\E", position + 2);
+                    String quoted = regex.substring(position + 2, end < 0 ? regex.length() : end);
+                    position = end < 0 ? regex.length() : end + 2;
+                    for (int i = 0; i < quoted.length(); i++) {
+                        Node literal = literal(quoted.charAt(i));
+                        nodes.add(i < quoted.length() - 1 ? literal : quantified(literal));
+                    }
+                    continue;
+                }
+                Node atom = atom();
+                if (atom != null) {
+                    nodes.add(quantified(atom));
+                }
+            }
+            return nodes.size() == 1 ? nodes.get(0) : new Sequence(nodes);
+        }
+
+        private Node quantified(Node atom) {
+            Node node = atom;
+            while (true) {
+                skipComments();
+                if (position >= regex.length()) {
+                    return node;
+                }
+                int min;
+                int max;
+                switch (regex.charAt(position)) {
+                case '*':
+                    min = 0;
+                    max = -1;
+                    position++;
+                    break;
+                case '+':
+                    min = 1;
+                    max = -1;
+                    position++;
+                    break;
+                case '?':
+                    min = 0;
+                    max = 1;
+                    position++;
+                    break;
+                case '{':
+                    position++;
+                    min = number();
+                    max = min;
+                    if (regex.charAt(position) == ',') {
+                        position++;
+                        max = regex.charAt(position) == '}' ? -1 : number();
+                    }
+                    position++;
+                    break;
+                default:
+                    return node;
+                }
+                skipComments();
+                boolean greedy = true;
+                if (position < regex.length() && regex.charAt(position) == '?') {
+                    greedy = false;
+                    position++;
+                } else if (position < regex.length() && regex.charAt(position) == '+') {
+                    throw unsupported("possessive quantifiers");
+                }
+                node = new Repeat(node, min, max, greedy);
+            }
+        }
+
+        /**
+         * @return the next atom, or null for an inline flags group.
+         */
+        private Node atom() {
+            char c = regex.charAt(position);
+            switch (c) {
+            case '(':
+                return group();
+            case '[':
+                position++;
+                return new Instruction(charClass());
+            case '.':
+                position++;
+                return new Instruction(ANY, has(Pattern.DOTALL) ? 1 : 0, unixLines());
+            case '^':
+                position++;
+                return new Instruction(ASSERT, has(Pattern.MULTILINE) ? LINE_START
+                        : INPUT_START, unixLines());
+            case '$':
+                position++;
+                return new Instruction(ASSERT, has(Pattern.MULTILINE) ? LINE_END
+                        : INPUT_END_LINE, unixLines());
+            case '\\':
+                return escape();
+            default:
+                position++;
+                return literal(c);
+            }
+        }
+
+        private Node group() {
+            position++;
+            int savedFlags = flags;
+            Node node;
+            if (regex.startsWith("?", position)) {
+                position++;
+                char c = regex.charAt(position);
+                char next = position + 1 < regex.length() ? regex.charAt(position + 1) : 0;
+                if (c == ':') {
+                    position++;
+                    node = alternation();
+                } else if (c == 'P' && next == '<') {
+                    position += 2;
+                    node = namedGroup();
+                } else if (c == '<' && Character.isLetter(next)) {
+                    position++;
+                    node = namedGroup();
+                } else if (c == '=' || c == '!' || c == '<') {
+                    throw unsupported("look-arounds");
+                } else if (c == '>') {
+                    throw unsupported("atomic groups");
+                } else {
+                    inlineFlags();
+                    if (regex.charAt(position) == ')') {
+                        /* the flags apply until the end of the enclosing group */
+                        position++;
+                        return null;
+                    }
+                    position++;
+                    node = alternation();
+                }
+            } else {
+                /* only the named groups are captured */
+                node = alternation();
+            }
+            position++;
+            flags = savedFlags;
+            return node;
+        }
+
+        private Node namedGroup() {
+            int end = regex.indexOf('>', position);
+            names.add(regex.substring(position, end));
+            int index = names.size();
+            position = end + 1;
+            return new Group(alternation(), index);
+        }
+
+        private void inlineFlags() {
+            boolean enable = true;
+            while (position < regex.length()) {
+                char c = regex.charAt(position);
+                int flag;
+                switch (c) {
+                case '-':
+                    enable = false;
+                    position++;
+                    continue;
+                case 'i':
+                    flag = Pattern.CASE_INSENSITIVE;
+                    break;
+                case 'd':
+                    flag = Pattern.UNIX_LINES;
+                    break;
+                case 'm':
+                    flag = Pattern.MULTILINE;
+                    break;
+                case 's':
+                    flag = Pattern.DOTALL;
+                    break;
+                case 'u':
+                    flag = Pattern.UNICODE_CASE;
+                    break;
+                case 'x':
+                    flag = Pattern.COMMENTS;
+                    break;
+                case ':':
+                case ')':
+                    return;
+                default:
+                    throw unsupported("the inline flag " + c);
+                }
+                flags = enable ? flags | flag : flags & ~flag;
+                position++;
+            }
+        }
+
+        private CharClass charClass() {
+            CharClass charClass = new CharClass(fold());
+            if (position < regex.length() && regex.charAt(position) == '^') {
+                charClass.negated = true;
+                position++;
+            }
+            boolean first = true;
+            while (true) {
+                skipComments();
+                if (position >= regex.length()) {
+                    throw error("Unclosed character class");
+                }
+                char c = regex.charAt(position);
+                if (c == ']' && !first) {
+                    position++;
+                    return charClass;
+                } else if (c == '[') {
+                    throw unsupported("nested character classes");
+                } else if (c == '&' && regex.startsWith("&&", position)) {
+                    throw unsupported("character class intersections");
+                }
+                first = false;
+                int low;
+                if (c == '\\') {
+                    position++;
+                    int[] predefined = predefined(regex.charAt(position));
+                    if (predefined != null) {
+                        charClass.addAll(predefined, Character.isUpperCase(regex.charAt(
+                                position++)));
+                        continue;
+                    }
+                    low = escapedChar();
+                } else {
+                    low = c;
+                    position++;
+                }
+                int high = low;
+                if (position + 1 < regex.length() && regex.charAt(position) == '-'
+                        && regex.charAt(position + 1) != ']')
+                {
+                    position++;
+                    c = regex.charAt(position);
+                    if (c == '[') {
+                        throw unsupported("nested character classes");
+                    } else if (c == '\\') {
+                        position++;
+                        high = escapedChar();
+                    } else {
+                        high = c;
+                        position++;
+                    }
+                }
+                charClass.addRange(low, high);
+            }
+        }
+
+        private Node escape() {
+            position++;
+            char c = regex.charAt(position);
+            int[] predefined = predefined(c);
+            if (predefined != null) {
+                position++;
+                CharClass charClass = new CharClass(FOLD_NONE);
+                charClass.addAll(predefined, Character.isUpperCase(c));
+                return new Instruction(charClass);
+            }
+            switch (c) {
+            case 'b':
+                position++;
+                return new Instruction(ASSERT, WORD_BOUNDARY, 0);
+            case 'B':
+                position++;
+                return new Instruction(ASSERT, NOT_WORD_BOUNDARY, 0);
+            case 'A':
+                position++;
+                return new Instruction(ASSERT, INPUT_START, 0);
+            case 'z':
+                position++;
+                return new Instruction(ASSERT, INPUT_END, 0);
+            case 'Z':
+                position++;
+                return new Instruction(ASSERT, INPUT_END_LINE, unixLines());
+            default:
+                return literal(escapedChar());
+            }
+        }
+
+        /**
+         * Reads the escape sequence of a single char, after its backslash.
+         */
+        private int escapedChar() {
+            char c = regex.charAt(position++);
+            switch (c) {
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            case 'a':
+                return '\u0007';
+            case 'e':
+                return '\u001B';
+            case 'c':
+                return regex.charAt(position++) ^ 64;
+            case '0':
+                int octal = 0;
+                int digits = 0;
+                while (digits < 3 && position < regex.length()
+                        && regex.charAt(position) >= '0' && regex.charAt(position) <= '7'
+                        && octal * 8 + (regex.charAt(position) - '0') <= 0377)
+                {
+                    octal = octal * 8 + (regex.charAt(position++) - '0');
+                    digits++;
+                }
+                return octal;
+            case 'x':
+                if (regex.charAt(position) == '{') {
+                    int end = regex.indexOf('}', position);
+                    int codePoint = Integer.parseInt(regex.substring(position + 1, end), 16);
+                    position = end + 1;
+                    if (codePoint > MAX_CHAR) {
+                        throw unsupported("supplementary chars");
+                    }
+                    return codePoint;
+                }
+                position += 2;
+                return Integer.parseInt(regex.substring(position - 2, position), 16);
+            case 'u':
+                position += 4;
+                return Integer.parseInt(regex.substring(position - 4, position), 16);
+            default:
+                if ((c >= '1' && c <= '9') || c == 'k') {
+                    throw unsupported("back-references");
+                } else if (c == 'p' || c == 'P') {
+                    throw unsupported("Unicode properties");
+                } else if (Character.isLetter(c)) {
+                    throw unsupported("\\" + c);
+                }
+                return c;
+            }
+        }
+
+        private int[] predefined(char c) {
+            switch (Character.toLowerCase(c)) {
+            case 'd':
+                return DIGITS;
+            case 'w':
+                return WORDS;
+            case 's':
+                return SPACES;
+            default:
+                return null;
+            }
+        }
+
+        private Node literal(int c) {
+            if (Character.isSurrogate((char) c)) {
+                throw unsupported("supplementary chars");
+            }
+            return new Instruction(CHAR, c, fold());
+        }
+
+        private int number() {
+            int start = position;
+            while (Character.isDigit(regex.charAt(position))) {
+                position++;
+            }
+            return Integer.parseInt(regex.substring(start, position));
+        }
+
+        /**
+         * Skips the white spaces and comments of the COMMENTS mode.
+         */
+        private void skipComments() {
+            if (!has(Pattern.COMMENTS)) {
+                return;
+            }
+            while (position < regex.length()) {
+                char c = regex.charAt(position);
+                if (Character.isWhitespace(c)) {
+                    position++;
+                } else if (c == '#') {
+                    while (position < regex.length()
+                            && !isLineTerminator(regex.charAt(position), false))
+                    {
+                        position++;
+                    }
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private boolean has(int flag) {
+            return (flags & flag) != 0;
+        }
+
+        private int unixLines() {
+            return has(Pattern.UNIX_LINES) ? 1 : 0;
+        }
+
+        private int fold() {
+            if (!has(Pattern.CASE_INSENSITIVE)) {
+                return FOLD_NONE;
+            }
+            return has(Pattern.UNICODE_CASE) ? FOLD_UNICODE : FOLD_ASCII;
+        }
+
+        private PatternSyntaxException unsupported(String construct) {
+            return new PatternSyntaxException("Not supported by the linear engine: "
+                    + construct, regex, position - 1);
+        }
+
+        private PatternSyntaxException error(String message) {
+            return new PatternSyntaxException(message, regex, position);
+        }
+    }
+
+}
@@ -0,0 +1,306 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.nio.CharBuffer;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.code.regexp.NamedMatcher;
+import com.google.code.regexp.NamedPattern;
+
+/**
+ * Searches the literal text every match of a pattern starts with (e.g. <code>&lt;version&gt;</code>
+ * in <code>&lt;version&gt;(?P&lt;VERSION&gt;.+?)&lt;/version&gt;</code>) with the
+ * Boyer-Moore-Horspool algorithm, and only runs the pattern at the positions where it is found.
+ * 
+ * The pattern is first run on a region of at most {@link #MAX_MATCH_LENGTH} chars after each
+ * candidate, so that a quantifier which does not find its end does not scan the rest of a large
+ * file for every candidate. It is only run again on the rest of the content when it hit the end
+ * of that region, so that longer matches are found as without the prefilter.
+ */
+public class LiteralPrefilter {
+
+    /** shorter literals are not worth skipping to */
+    public static final int MIN_LITERAL_LENGTH = 2;
+    public static final int MAX_MATCH_LENGTH = StreamingMatcher.DEFAULT_WINDOW_SIZE;
+
+    private static final String META_CHARS = ".[]()*+?{}|^$";
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final char[] literal;
+    private final String literalString;
+    private final boolean ignoreCase;
+    /** Horspool shifts, indexed by the low byte of the folded char */
+    private final int[] shifts = new int[256];
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    private LiteralPrefilter(String literal, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.literal = new char[literal.length()];
+        for (int i = 0; i < this.literal.length; i++) {
+            this.literal[i] = fold(literal.charAt(i));
+        }
+        this.literalString = new String(this.literal);
+        int last = this.literal.length - 1;
+        for (int i = 0; i < shifts.length; i++) {
+            shifts[i] = this.literal.length;
+        }
+        /* chars sharing a low byte get the smallest shift, which is always safe */
+        for (int i = 0; i < last; i++) {
+            shifts[this.literal[i] & 0xFF] = last - i;
+        }
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * @return a prefilter for <code>regex</code>, or null when the pattern does not start with
+     *         a literal that is long enough.
+     */
+    public static LiteralPrefilter of(String regex, int flags) {
+        boolean ignoreCase = (flags & Pattern.CASE_INSENSITIVE) != 0;
+        String literal = getLiteralPrefix(regex, (flags & Pattern.COMMENTS) != 0);
+        if (literal == null || literal.length() < MIN_LITERAL_LENGTH) {
+            return null;
+        }
+        if (ignoreCase && (flags & Pattern.UNICODE_CASE) != 0) {
+            /* e.g. k also matches the Kelvin sign */
+            return null;
+        } else if (ignoreCase) {
+            for (int i = 0; i < literal.length(); i++) {
+                if (literal.charAt(i) > 0x7F) {
+                    /* case folding is only done for US-ASCII */
+                    return null;
+                }
+            }
+        }
+        return new LiteralPrefilter(literal, ignoreCase);
+    }
+
+    /**
+     * @return the literal text every match of <code>regex</code> starts with, or null.
+     */
+    public static String getLiteralPrefix(String regex, boolean comments) {
+        if (hasAlternation(regex)) {
+            return null;
+        }
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            int length = 1;
+            if (comments && Character.isWhitespace(c)) {
+                i++;
+                continue;
+            } else if (comments && c == '#') {
+                break;
+            } else if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    break;
+                }
+                c = unescape(regex.charAt(i + 1));
+                if (c == 0) {
+                    break;
+                }
+                length = 2;
+            } else if (META_CHARS.indexOf(c) >= 0) {
+                break;
+            }
+            i += length;
+            while (comments && i < regex.length() && Character.isWhitespace(regex.charAt(i))) {
+                i++;
+            }
+            char next = i < regex.length() ? regex.charAt(i) : 0;
+            if (next == '?' || next == '*' || next == '{') {
+                /* the char may be missing */
+                break;
+            }
+            literal.append(c);
+            if (next == '+') {
+                break;
+            }
+        }
+        return literal.length() > 0 ? literal.toString() : null;
+    }
+
+    /**
+     * Collects the matches of <code>pattern</code> in <code>content</code>.
+     * 
+     * @return the extracted variables, or null if nothing matched.
+     */
+    public Map<String, String> collect(NamedPattern pattern, CharSequence content,
+            MatchCollector collector)
+    {
+        NamedMatcher matcher = pattern.matcher(content);
+        Matcher standard = matcher.standardMatcher();
+        int from = 0;
+        int candidate;
+        while (!collector.isDone() && (candidate = indexOf(content, from)) >= 0) {
+            int end = (int) Math.min(content.length(), (long) candidate + MAX_MATCH_LENGTH);
+            standard.region(candidate, end);
+            standard.useTransparentBounds(true);
+            standard.useAnchoringBounds(false);
+            boolean found = standard.lookingAt();
+            if (standard.hitEnd() && end < content.length()) {
+                /* the match may be longer than the region */
+                standard.region(candidate, content.length());
+                found = standard.lookingAt();
+            }
+            if (found) {
+                collector.add(matcher.namedGroups());
+                from = Math.max(standard.end(), candidate + 1);
+            } else {
+                from = candidate + 1;
+            }
+        }
+        return collector.getVariables();
+    }
+
+    /**
+     * @return the index of the next occurrence of the literal at or after <code>from</code>,
+     *         or -1.
+     */
+    public int indexOf(CharSequence content, int from) {
+        if (!ignoreCase && content instanceof String) {
+            return ((String) content).indexOf(literalString, from);
+        }
+        if (content instanceof CharBuffer && ((CharBuffer) content).hasArray()) {
+            /* decoded files are heap buffers: search the array without going through charAt */
+            CharBuffer buffer = (CharBuffer) content;
+            int offset = buffer.arrayOffset() + buffer.position();
+            int index = indexOf(buffer.array(), offset + from, offset + buffer.remaining());
+            return index >= 0 ? index - offset : -1;
+        }
+        int last = literal.length - 1;
+        int end = content.length() - last;
+        int position = from;
+        while (position < end) {
+            char c = fold(content.charAt(position + last));
+            if (c == literal[last]) {
+                int i = last - 1;
+                while (i >= 0 && fold(content.charAt(position + i)) == literal[i]) {
+                    i--;
+                }
+                if (i < 0) {
+                    return position;
+                }
+            }
+            position += shifts[c & 0xFF];
+        }
+        return -1;
+    }
+
+    public String getLiteral() {
+        return literalString;
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private int indexOf(char[] content, int from, int to) {
+        int last = literal.length - 1;
+        int end = to - last;
+        int position = from;
+        while (position < end) {
+            char c = fold(content[position + last]);
+            if (c == literal[last]) {
+                int i = last - 1;
+                while (i >= 0 && fold(content[position + i]) == literal[i]) {
+                    i--;
+                }
+                if (i < 0) {
+                    return position;
+                }
+            }
+            position += shifts[c & 0xFF];
+        }
+        return -1;
+    }
+
+    private char fold(char c) {
+        if (ignoreCase && c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        return c;
+    }
+
+    /**
+     * @return the char matched by the escape sequence <code>\c</code>, or 0 when it is not a
+     *         single literal char (classes, back references, quoting, ...).
+     */
+    private static char unescape(char c) {
+        switch (c) {
+        case 't':
+            return '\t';
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 'f':
+            return '\f';
+        default:
+            return Character.isLetterOrDigit(c) ? 0 : c;
+        }
+    }
+
+    /**
+     * A '|' anywhere outside a char class may make the literal optional. Nested classes and
+     * quoted sections are not parsed, they just disable the prefilter.
+     */
+    private static boolean hasAlternation(String regex) {
+        boolean inClass = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+                    return true;
+                }
+                i++;
+            } else if (c == '[') {
+                if (inClass) {
+                    return true;
+                }
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '|' && !inClass) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,130 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.code.regexp.NamedMatcher;
+
+/**
+ * Accumulates the named groups of successive matches according to a {@link MatchMode}.
+ */
+public class MatchCollector {
+
+    public static final String COUNT_SUFFIX = "_COUNT";
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final MatchMode mode;
+    private final Map<String, String> variables = new LinkedHashMap<String, String>();
+    private final Set<String> groupNames = new LinkedHashSet<String>();
+    private int count = 0;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    public MatchCollector(MatchMode mode) {
+        this.mode = mode;
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * Records the named groups of one match.
+     * 
+     * @return true if no more matches are needed.
+     */
+    public boolean add(Map<String, String> groups) {
+        switch (mode) {
+        case ALL:
+            for (Entry<String, String> group : groups.entrySet()) {
+                groupNames.add(group.getKey());
+                variables.put(group.getKey() + "_" + count, group.getValue());
+            }
+            break;
+        default:
+            variables.putAll(groups);
+            break;
+        }
+        count++;
+        return isDone();
+    }
+
+    /**
+     * Collects the matches of <code>matcher</code> over its whole input.
+     * 
+     * @return the extracted variables, or null if nothing matched.
+     */
+    public Map<String, String> collect(NamedMatcher matcher) {
+        while (!isDone() && matcher.find()) {
+            add(matcher.namedGroups());
+        }
+        return getVariables();
+    }
+
+    /**
+     * @see #collect(NamedMatcher)
+     */
+    public Map<String, String> collect(PatternMatcher matcher) {
+        while (!isDone() && matcher.find()) {
+            add(matcher.namedGroups());
+        }
+        return getVariables();
+    }
+
+    public boolean isDone() {
+        return mode == MatchMode.FIRST && count > 0;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the extracted variables, or null if nothing matched.
+     */
+    public Map<String, String> getVariables() {
+        if (count == 0) {
+            return null;
+        }
+        Map<String, String> result = new LinkedHashMap<String, String>(variables);
+        if (mode == MatchMode.ALL) {
+            for (String name : groupNames) {
+                result.put(name + COUNT_SUFFIX, String.valueOf(count));
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,181 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Copies the bytes written to it to another stream (typically the build log) and decodes them
+ * on the fly to feed a {@link StreamingMatcher}, so that the output of a process is never fully
+ * held in memory.
+ * 
+ * An optional limit caps the number of bytes copied and matched; the bytes written beyond it are
+ * only counted. The target stream is flushed but never closed. Call {@link #finish()} once the process is
+ * over to search the end of the output.
+ */
+public class MatchingOutputStream extends OutputStream {
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final OutputStream out;
+    private final StreamingMatcher matcher;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes = ByteBuffer.allocate(8192);
+    private final CharBuffer chars = CharBuffer.allocate(8192);
+    private final long limit;
+    private long byteCount = 0;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    public MatchingOutputStream(OutputStream out, StreamingMatcher matcher, Charset charset) {
+        this(out, matcher, charset, 0);
+    }
+
+    /**
+     * @param limit
+     *            the maximum number of bytes to copy and match, 0 for no limit.
+     */
+    public MatchingOutputStream(OutputStream out, StreamingMatcher matcher, Charset charset,
+            long limit)
+    {
+        this.out = out;
+        this.limit = limit;
+        this.matcher = matcher;
+        this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /************
+     * OVERRIDE *
+     ************/
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        int accepted = len;
+        if (limit > 0) {
+            accepted = (int) Math.max(0, Math.min(len, limit - byteCount));
+        }
+        byteCount += len;
+        len = accepted;
+        if (len == 0) {
+            return;
+        }
+        out.write(b, off, len);
+        if (matcher.isDone()) {
+            return;
+        }
+        while (len > 0) {
+            int count = Math.min(len, bytes.remaining());
+            bytes.put(b, off, count);
+            off += count;
+            len -= count;
+            decode(false);
+        }
+        matcher.flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * Decodes the remaining bytes and searches the end of the output.
+     */
+    public synchronized void finish() throws IOException {
+        if (!matcher.isDone()) {
+            decode(true);
+            decoder.flush(chars);
+            feed();
+            matcher.finish();
+        }
+        out.flush();
+    }
+
+    public synchronized boolean isDone() {
+        return matcher.isDone();
+    }
+
+    /**
+     * @return the number of bytes written so far, including the ones beyond the limit.
+     */
+    public synchronized long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * @return true if bytes were dropped because of the limit.
+     */
+    public synchronized boolean isLimitExceeded() {
+        return limit > 0 && byteCount > limit;
+    }
+
+    public StreamingMatcher getMatcher() {
+        return matcher;
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private void decode(boolean endOfInput) {
+        bytes.flip();
+        CoderResult result;
+        do {
+            result = decoder.decode(bytes, chars, endOfInput);
+            feed();
+        } while (result.isOverflow());
+        bytes.compact();
+    }
+
+    private void feed() {
+        chars.flip();
+        if (chars.hasRemaining()) {
+            matcher.feed(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+        }
+        chars.clear();
+    }
+
+}
@@ -0,0 +1,122 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Selects variable names from a list of exact names and globs (<code>*</code> and
+ * <code>?</code>, e.g. <code>BUILD_*</code>). An empty list accepts every name.
+ */
+public class NameFilter implements Serializable {
+
+    private static final long serialVersionUID = 2784431069128716263L;
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final Set<String> names = new HashSet<String>();
+    private final List<Pattern> globs = new ArrayList<Pattern>();
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    public NameFilter(List<String> filters) {
+        for (String filter : filters) {
+            if (filter.indexOf('*') >= 0 || filter.indexOf('?') >= 0) {
+                globs.add(Pattern.compile(toRegExp(filter)));
+            } else {
+                names.add(filter);
+            }
+        }
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    public boolean accepts(String name) {
+        if (isEmpty() || names.contains(name)) {
+            return true;
+        }
+        for (Pattern glob : globs) {
+            if (glob.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return names.isEmpty() && globs.isEmpty();
+    }
+
+    /**
+     * @return true if the filter only lists exact names, so that the number of accepted names
+     *         is known in advance.
+     */
+    public boolean isExact() {
+        return !isEmpty() && globs.isEmpty();
+    }
+
+    /**
+     * @return the number of exact names.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static String toRegExp(String glob) {
+        StringBuilder regexp = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regexp.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regexp.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regexp.append(Pattern.quote(literal.toString()));
+        }
+        return regexp.toString();
+    }
+
+}
@@ -0,0 +1,133 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Variable names mapped to path expressions, parsed from lines like
+ * <code>VERSION = /project/version</code>. Blank lines and lines starting with <code>#</code>
+ * are ignored.
+ */
+public class PathMappings implements Serializable {
+
+    private static final long serialVersionUID = -3390813573214187043L;
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final List<String> variables = new ArrayList<String>();
+    private final List<String> paths = new ArrayList<String>();
+    private final Set<String> distinctPaths = new LinkedHashSet<String>();
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    private PathMappings() {
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * @param normalizer
+     *            rewrites each path to the form used by the reader, may throw an
+     *            {@link IllegalArgumentException} for an invalid path.
+     * @throws IllegalArgumentException
+     *             when a line is not a mapping.
+     */
+    public static PathMappings parse(String text, Normalizer normalizer) {
+        PathMappings mappings = new PathMappings();
+        for (String line : text.split("\r?\n")) {
+            line = line.trim();
+            if (line.length() == 0 || line.startsWith("#")) {
+                continue;
+            }
+            int separator = line.indexOf('=');
+            if (separator <= 0 || separator == line.length() - 1) {
+                throw new IllegalArgumentException("Invalid mapping (NAME = path expected): "
+                        + line);
+            }
+            String variable = line.substring(0, separator).trim();
+            String path = normalizer.normalize(line.substring(separator + 1).trim());
+            mappings.variables.add(variable);
+            mappings.paths.add(path);
+            mappings.distinctPaths.add(path);
+        }
+        return mappings;
+    }
+
+    public boolean contains(String path) {
+        return distinctPaths.contains(path);
+    }
+
+    /**
+     * @return the distinct paths, in the order of the mappings.
+     */
+    public Set<String> getPaths() {
+        return distinctPaths;
+    }
+
+    public int size() {
+        return distinctPaths.size();
+    }
+
+    /**
+     * @return the variables of the resolved paths, in the order of the mappings. When a
+     *         variable is mapped several times, the last resolved mapping wins.
+     */
+    public Map<String, String> toVariables(Map<String, String> values) {
+        Map<String, String> resolved = new LinkedHashMap<String, String>();
+        for (int i = 0; i < variables.size(); i++) {
+            String value = values.get(paths.get(i));
+            if (value != null) {
+                resolved.put(variables.get(i), value);
+            }
+        }
+        return resolved;
+    }
+
+    @Override
+    public String toString() {
+        return distinctPaths.toString();
+    }
+
+    /**
+     * Rewrites the paths of a given syntax to a canonical form.
+     */
+    public interface Normalizer extends Serializable {
+        String normalize(String path);
+    }
+
+}
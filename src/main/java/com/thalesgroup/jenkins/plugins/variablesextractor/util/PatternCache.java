@@ -0,0 +1,203 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.google.code.regexp.NamedPattern;
+
+/**
+ * Bounded LRU cache of compiled patterns, keyed by the resolved expression, its flags and
+ * the {@link RegexEngine} which compiled it.
+ * 
+ * There is one instance per JVM: since patterns are matched on the nodes, each agent keeps its
+ * own cache across builds. The lookups are also counted per thread so that the ones made by an
+ * extraction on an agent can be sent back with its result, see {@link #getThreadLookups()}.
+ */
+public class PatternCache {
+
+    public static final int DEFAULT_MAX_SIZE = 500;
+
+    private static final PatternCache INSTANCE = new PatternCache(DEFAULT_MAX_SIZE);
+
+    /** hits and misses of the current thread, in all the caches */
+    private static final ThreadLocal<long[]> THREAD_LOOKUPS = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[2];
+        }
+    };
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final Map<Key, CompiledPattern> patterns;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    @SuppressWarnings("serial")
+    public PatternCache(final int maxSize) {
+        this.patterns = new LinkedHashMap<Key, CompiledPattern>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompiledPattern> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    public static PatternCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Shortcut to compile a pattern through the JVM wide cache.
+     */
+    public static NamedPattern compile(String regex, int flags) {
+        return INSTANCE.get(regex, flags);
+    }
+
+    /**
+     * @return the hits and misses of the current thread so far. The difference between two calls
+     *         gives the lookups made in between.
+     */
+    public static long[] getThreadLookups() {
+        return THREAD_LOOKUPS.get().clone();
+    }
+
+    public static int flags(boolean ignoreCase, boolean comments, boolean multiline,
+            boolean dotall)
+    {
+        int flags = 0;
+        if (ignoreCase) {
+            flags |= Pattern.CASE_INSENSITIVE;
+        }
+        if (comments) {
+            flags |= Pattern.COMMENTS;
+        }
+        if (multiline) {
+            flags |= Pattern.MULTILINE;
+        }
+        if (dotall) {
+            flags |= Pattern.DOTALL;
+        }
+        return flags;
+    }
+
+    public NamedPattern get(String regex, int flags) {
+        return ((JavaPattern) get(regex, flags, RegexEngine.JAVA)).getNamedPattern();
+    }
+
+    public CompiledPattern get(String regex, int flags, RegexEngine engine) {
+        Key key = new Key(regex, flags, engine);
+        CompiledPattern compiled;
+        synchronized (patterns) {
+            compiled = patterns.get(key);
+        }
+        if (compiled != null) {
+            hits.incrementAndGet();
+            THREAD_LOOKUPS.get()[0]++;
+            return compiled;
+        }
+        misses.incrementAndGet();
+        THREAD_LOOKUPS.get()[1]++;
+        /* compile outside of the lock, concurrent misses on the same key are harmless */
+        if (engine == RegexEngine.LINEAR) {
+            compiled = LinearPattern.compile(regex, flags);
+        } else {
+            compiled = new JavaPattern(NamedPattern.compile(regex, flags));
+        }
+        synchronized (patterns) {
+            patterns.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int getSize() {
+        synchronized (patterns) {
+            return patterns.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (patterns) {
+            patterns.clear();
+        }
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static final class Key {
+
+        private final String regex;
+        private final int flags;
+        private final RegexEngine engine;
+
+        Key(String regex, int flags, RegexEngine engine) {
+            this.regex = regex;
+            this.flags = flags;
+            this.engine = engine;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return flags == other.flags && engine == other.engine && regex.equals(other.regex);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * regex.hashCode() + flags) + engine.ordinal();
+        }
+    }
+
+}
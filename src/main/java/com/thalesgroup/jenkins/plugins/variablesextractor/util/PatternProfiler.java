@@ -0,0 +1,429 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.google.code.regexp.NamedPattern;
+
+/**
+ * Measures the cost of a pattern on a sample, when a job is configured, and spots the
+ * constructs which make the backtracking engine slow.
+ * 
+ * The matching cost is counted in steps: the number of chars read from the input by the
+ * matcher. A pattern which does not backtrack reads each char a few times, a catastrophic one
+ * reads the same chars again and again. Matching is aborted after {@link #MAX_STEPS} steps.
+ */
+public class PatternProfiler {
+
+    /** bounds the time spent matching the sample */
+    public static final long MAX_STEPS = 50000000L;
+    /** above this average, the pattern is reported as backtracking */
+    public static final int MAX_STEPS_PER_CHAR = 50;
+
+    /** atoms which can match almost anything */
+    private static final String WIDE_ATOMS = ".|\\S|\\W|\\D";
+
+    private PatternProfiler() {
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * Compiles and matches <code>regex</code> against <code>sample</code>, without going
+     * through the {@link PatternCache} so that the compile time is measured.
+     * 
+     * @throws PatternSyntaxException
+     *             if the pattern is invalid or not supported by <code>engine</code>.
+     */
+    public static Profile profile(String regex, int flags, RegexEngine engine, MatchMode mode,
+            CharSequence sample)
+    {
+        Profile profile = new Profile(sample.length());
+        long start = System.nanoTime();
+        CompiledPattern compiled;
+        LiteralPrefilter prefilter = null;
+        if (engine == RegexEngine.LINEAR) {
+            compiled = LinearPattern.compile(regex, flags);
+        } else {
+            compiled = new JavaPattern(NamedPattern.compile(regex, flags));
+            prefilter = LiteralPrefilter.of(regex, flags);
+            profile.warnings.addAll(analyze(regex, flags));
+        }
+        profile.compileNanos = System.nanoTime() - start;
+
+        StepCounter input = new StepCounter(sample);
+        MatchCollector collector = new MatchCollector(mode);
+        start = System.nanoTime();
+        try {
+            if (prefilter != null) {
+                /* same path as the extraction */
+                prefilter.collect(((JavaPattern) compiled).getNamedPattern(), input, collector);
+            } else {
+                collector.collect(compiled.matcher(input));
+            }
+        } catch (StepLimitException e) {
+            profile.aborted = true;
+        }
+        profile.matchNanos = System.nanoTime() - start;
+        profile.steps = input.steps;
+        profile.matches = collector.getCount();
+        if (!profile.aborted && profile.getStepsPerChar() > MAX_STEPS_PER_CHAR) {
+            profile.warnings.add("Backtracking: " + profile.getStepsPerChar()
+                    + " steps per char of the sample");
+        }
+        return profile;
+    }
+
+    /**
+     * Looks for the constructs known to make the backtracking engine slow on some inputs. Only
+     * the shape of the pattern is considered: a warning does not mean the pattern is slow on
+     * the actual files.
+     * 
+     * @return the warnings, empty if none.
+     */
+    public static List<String> analyze(String regex, int flags) {
+        List<String> warnings = new ArrayList<String>();
+        boolean comments = (flags & Pattern.COMMENTS) != 0;
+        boolean dotall = (flags & Pattern.DOTALL) != 0;
+        /* for each open group, whether it contains an unbounded quantifier */
+        List<Boolean> groups = new ArrayList<Boolean>();
+        /* for each open group, whether it contains a literal which separates its repetitions */
+        List<Boolean> separated = new ArrayList<Boolean>();
+        String previousAtom = null;
+        boolean previousUnbounded = false;
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            int start = i;
+            String atom = null;
+            if (comments && Character.isWhitespace(c)) {
+                i++;
+                continue;
+            } else if (comments && c == '#') {
+                while (i < regex.length() && regex.charAt(i) != '\n') {
+                    i++;
+                }
+                continue;
+            } else if (c == '\\' && regex.startsWith("\\Q", i)) {
+                int end = regex.indexOf("\\E", i);
+                i = end < 0 ? regex.length() : end + 2;
+                atom = regex.substring(start, i);
+            } else if (c == '\\') {
+                i = Math.min(i + 2, regex.length());
+                atom = regex.substring(start, i);
+            } else if (c == '[') {
+                i = skipClass(regex, i);
+                atom = regex.substring(start, i);
+            } else if (c == '(') {
+                i = skipGroupPrefix(regex, i + 1);
+                if (i <= regex.length() && regex.charAt(i - 1) == ')') {
+                    /* inline flags */
+                    continue;
+                }
+                groups.add(Boolean.FALSE);
+                separated.add(Boolean.FALSE);
+                previousAtom = null;
+                continue;
+            } else if (c == ')' && !groups.isEmpty()) {
+                boolean nested = groups.remove(groups.size() - 1);
+                nested &= !separated.remove(separated.size() - 1);
+                i++;
+                int end = skipQuantifier(regex, i);
+                boolean unbounded = isUnbounded(regex.substring(i, end));
+                if (nested && unbounded) {
+                    add(warnings, "Nested quantifiers: a repeated group containing a repeated "
+                            + "element may backtrack exponentially");
+                }
+                markGroups(groups, nested || unbounded);
+                i = end;
+                previousAtom = null;
+                continue;
+            } else if (c == '|') {
+                i++;
+                previousAtom = null;
+                continue;
+            } else {
+                i++;
+                atom = String.valueOf(c);
+            }
+            int end = skipQuantifier(regex, i);
+            String quantifier = regex.substring(i, end);
+            i = end;
+            boolean unbounded = isUnbounded(quantifier);
+            if (!separated.isEmpty() && isLiteral(atom) && quantifier.length() == 0) {
+                separated.set(separated.size() - 1, Boolean.TRUE);
+            }
+            if (unbounded) {
+                markGroups(groups, true);
+                if (previousUnbounded && previousAtom != null
+                        && (previousAtom.equals(atom) || isWide(previousAtom) || isWide(atom)))
+                {
+                    add(warnings, "Adjacent quantifiers " + previousAtom + " and " + atom
+                            + " match the same chars: the split between them is backtracked");
+                }
+                if (".".equals(atom) && dotall
+                        && LiteralPrefilter.getLiteralPrefix(regex, comments) == null)
+                {
+                    add(warnings, "With Dot All and no literal prefix, ." + quantifier
+                            + " may scan the rest of the input from each position");
+                }
+            }
+            previousAtom = atom;
+            previousUnbounded = unbounded;
+        }
+        return warnings;
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static void add(List<String> warnings, String warning) {
+        if (!warnings.contains(warning)) {
+            warnings.add(warning);
+        }
+    }
+
+    private static void markGroups(List<Boolean> groups, boolean unbounded) {
+        if (unbounded) {
+            for (int i = 0; i < groups.size(); i++) {
+                groups.set(i, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * @return true for a char which must be present, e.g. <code>-</code> or <code>\.</code>
+     */
+    private static boolean isLiteral(String atom) {
+        if (atom.startsWith("\\Q")) {
+            return atom.length() > 4;
+        } else if (atom.startsWith("\\")) {
+            return atom.length() == 2 && !Character.isLetterOrDigit(atom.charAt(1));
+        }
+        return atom.length() == 1 && ".^$".indexOf(atom.charAt(0)) < 0;
+    }
+
+    private static boolean isWide(String atom) {
+        return ("|" + WIDE_ATOMS + "|").contains("|" + atom + "|");
+    }
+
+    private static boolean isUnbounded(String quantifier) {
+        return quantifier.startsWith("*") || quantifier.startsWith("+")
+                || (quantifier.startsWith("{") && quantifier.contains(",}"));
+    }
+
+    /**
+     * @return the index after the quantifier starting at <code>i</code>, if any.
+     */
+    private static int skipQuantifier(String regex, int i) {
+        if (i >= regex.length()) {
+            return i;
+        }
+        char c = regex.charAt(i);
+        int end = i;
+        if (c == '*' || c == '+' || c == '?') {
+            end = i + 1;
+        } else if (c == '{' && regex.indexOf('}', i) > 0) {
+            end = regex.indexOf('}', i) + 1;
+        }
+        if (end > i && end < regex.length()
+                && (regex.charAt(end) == '?' || regex.charAt(end) == '+'))
+        {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * @return the index after the <code>?:</code>, <code>?P&lt;NAME&gt;</code>, etc. of the
+     *         group opened before <code>i</code>, or after the closing parenthesis of inline
+     *         flags.
+     */
+    private static int skipGroupPrefix(String regex, int i) {
+        if (!regex.startsWith("?", i)) {
+            return i;
+        }
+        int j = i + 1;
+        if (regex.startsWith("P<", j) || (regex.startsWith("<", j) && j + 1 < regex.length()
+                && Character.isLetter(regex.charAt(j + 1))))
+        {
+            int end = regex.indexOf('>', j);
+            return end < 0 ? regex.length() : end + 1;
+        }
+        while (j < regex.length()
+                && (Character.isLetter(regex.charAt(j)) || regex.charAt(j) == '-'))
+        {
+            j++;
+        }
+        if (regex.startsWith("<=", j) || regex.startsWith("<!", j)) {
+            return j + 2;
+        }
+        return Math.min(j + 1, regex.length());
+    }
+
+    /**
+     * @return the index after the char class starting at <code>i</code>.
+     */
+    private static int skipClass(String regex, int i) {
+        int depth = 0;
+        int j = i;
+        while (j < regex.length()) {
+            char c = regex.charAt(j);
+            if (c == '\\') {
+                j += 2;
+                continue;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']' && j > i + 1 && !(j == i + 2 && regex.charAt(i + 1) == '^')) {
+                if (--depth == 0) {
+                    return j + 1;
+                }
+            }
+            j++;
+        }
+        return regex.length();
+    }
+
+    /**
+     * Counts the chars read by the matcher, and aborts it when {@link #MAX_STEPS} is reached.
+     */
+    private static class StepCounter implements CharSequence {
+
+        private final CharSequence input;
+        long steps;
+
+        StepCounter(CharSequence input) {
+            this.input = input;
+        }
+
+        public char charAt(int index) {
+            if (++steps > MAX_STEPS) {
+                throw new StepLimitException();
+            }
+            return input.charAt(index);
+        }
+
+        public int length() {
+            return input.length();
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return input.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return input.toString();
+        }
+    }
+
+    private static class StepLimitException extends RuntimeException {
+        private static final long serialVersionUID = -2316416330166401727L;
+    }
+
+    /**********
+     * RESULT *
+     **********/
+
+    public static class Profile {
+
+        private final int length;
+        private final List<String> warnings = new ArrayList<String>();
+        private long compileNanos;
+        private long matchNanos;
+        private long steps;
+        private int matches;
+        private boolean aborted;
+
+        Profile(int length) {
+            this.length = length;
+        }
+
+        /**
+         * @return e.g. "2 match(es) in 1024 chars: compiled in 0.05 ms, matched in 0.31 ms,
+         *         3100 steps (3 per char)"
+         */
+        public String getSummary() {
+            StringBuilder summary = new StringBuilder();
+            if (aborted) {
+                summary.append("Aborted after ").append(steps).append(" steps on ").append(
+                        length).append(" chars");
+            } else {
+                summary.append(matches).append(" match(es) in ").append(length).append(" chars");
+            }
+            summary.append(": compiled in ").append(toMillis(compileNanos));
+            summary.append(" ms, matched in ").append(toMillis(matchNanos)).append(" ms");
+            if (!aborted) {
+                summary.append(", ").append(steps).append(" steps (").append(getStepsPerChar())
+                        .append(" per char)");
+            }
+            return summary.toString();
+        }
+
+        private static String toMillis(long nanos) {
+            return String.format("%.2f", nanos / 1000000.0);
+        }
+
+        public long getStepsPerChar() {
+            return length > 0 ? steps / length : steps;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public List<String> getWarnings() {
+            return warnings;
+        }
+
+        public long getCompileNanos() {
+            return compileNanos;
+        }
+
+        public long getMatchNanos() {
+            return matchNanos;
+        }
+
+        public long getSteps() {
+            return steps;
+        }
+
+        public int getMatches() {
+            return matches;
+        }
+
+        public boolean isAborted() {
+            return aborted;
+        }
+    }
+
+}
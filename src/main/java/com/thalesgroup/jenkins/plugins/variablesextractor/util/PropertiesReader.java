@@ -0,0 +1,217 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads a properties file line by line with the syntax of
+ * {@link java.util.Properties#load(Reader)}, keeping only the keys accepted by a
+ * {@link NameFilter}.
+ * 
+ * As with {@link java.util.Properties#load(Reader)}, the last occurrence of a duplicated key
+ * wins, except with a filter which only lists exact names: reading then stops as soon as all of
+ * them were found, so the first occurrence wins.
+ */
+public class PropertiesReader {
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final NameFilter filter;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    public PropertiesReader(NameFilter filter) {
+        this.filter = filter;
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * @return the accepted properties, in the order of the file.
+     */
+    public Map<String, String> read(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        Map<String, String> properties = new LinkedHashMap<String, String>();
+        String line;
+        while ((line = readLogicalLine(in)) != null) {
+            int keyEnd = findKeyEnd(line);
+            String key = unescape(line.substring(0, keyEnd));
+            if (filter.isExact() && properties.containsKey(key)) {
+                continue;
+            } else if (filter.accepts(key)) {
+                properties.put(key, unescape(line.substring(findValueStart(line, keyEnd))));
+                if (filter.isExact() && properties.size() == filter.size()) {
+                    break;
+                }
+            }
+        }
+        return properties;
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    /**
+     * @return the next line holding a property, with continuation lines joined and leading
+     *         white spaces removed, or null at the end of the input.
+     */
+    private static String readLogicalLine(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = trimLeading(line);
+            if (line.length() == 0 || line.charAt(0) == '#' || line.charAt(0) == '!') {
+                continue;
+            }
+            StringBuilder logical = new StringBuilder();
+            while (line != null && endsWithContinuation(line)) {
+                logical.append(line, 0, line.length() - 1);
+                line = in.readLine();
+                if (line != null) {
+                    line = trimLeading(line);
+                }
+            }
+            if (line != null) {
+                logical.append(line);
+            }
+            return logical.toString();
+        }
+        return null;
+    }
+
+    private static boolean endsWithContinuation(String line) {
+        int count = 0;
+        for (int i = line.length() - 1; i >= 0 && line.charAt(i) == '\\'; i--) {
+            count++;
+        }
+        return count % 2 == 1;
+    }
+
+    private static String trimLeading(String line) {
+        int i = 0;
+        while (i < line.length() && isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return line.substring(i);
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+
+    /**
+     * @return the index of the first unescaped separator (<code>=</code>, <code>:</code> or
+     *         white space).
+     */
+    private static int findKeyEnd(String line) {
+        boolean escaped = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '=' || c == ':' || isWhitespace(c)) {
+                return i;
+            }
+        }
+        return line.length();
+    }
+
+    private static int findValueStart(String line, int keyEnd) {
+        int i = keyEnd;
+        while (i < line.length() && isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        if (i < line.length() && (line.charAt(i) == '=' || line.charAt(i) == ':')) {
+            i++;
+        }
+        while (i < line.length() && isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i == value.length() - 1) {
+                result.append(c);
+                continue;
+            }
+            c = value.charAt(++i);
+            switch (c) {
+            case 't':
+                result.append('\t');
+                break;
+            case 'n':
+                result.append('\n');
+                break;
+            case 'r':
+                result.append('\r');
+                break;
+            case 'f':
+                result.append('\f');
+                break;
+            case 'u':
+                if (i + 4 >= value.length()) {
+                    throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                }
+                int code = 0;
+                for (int j = i + 1; j <= i + 4; j++) {
+                    char hex = value.charAt(j);
+                    int digit = hex < 0x80 ? Character.digit(hex, 16) : -1;
+                    if (digit < 0) {
+                        throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                    }
+                    code = code * 16 + digit;
+                }
+                result.append((char) code);
+                i += 4;
+                break;
+            default:
+                result.append(c);
+                break;
+            }
+        }
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,127 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import com.google.code.regexp.NamedPattern;
+
+/**
+ * A resolved pattern with its flags, ready to be sent to the node where it is matched.
+ */
+public class RegExpSpec implements Serializable {
+
+    private static final long serialVersionUID = 1637404920871870052L;
+
+    private final String pattern;
+    private final int flags;
+    private final MatchMode mode;
+    /** null in the specs serialized before the engine could be chosen */
+    private final RegexEngine engine;
+    /** computed on the node where the pattern is matched */
+    private transient volatile LiteralPrefilter prefilter;
+    private transient volatile boolean prefilterResolved;
+
+    public RegExpSpec(String pattern, int flags, MatchMode mode) {
+        this(pattern, flags, mode, RegexEngine.JAVA);
+    }
+
+    public RegExpSpec(String pattern, int flags, MatchMode mode, RegexEngine engine) {
+        this.pattern = pattern;
+        this.flags = flags;
+        this.mode = mode;
+        this.engine = engine;
+    }
+
+    /**
+     * @return the pattern compiled by the Java engine, whatever the engine of this spec.
+     */
+    public NamedPattern compile() {
+        return PatternCache.compile(pattern, flags);
+    }
+
+    /**
+     * @return the pattern compiled by the engine of this spec.
+     */
+    public CompiledPattern compilePattern() {
+        return getEngine().compile(pattern, flags);
+    }
+
+    public MatchCollector newCollector() {
+        return new MatchCollector(mode);
+    }
+
+    /**
+     * Matches the pattern against a whole content, only at the positions of its literal prefix
+     * when it has one.
+     * 
+     * @return the extracted variables, or null if nothing matched.
+     */
+    public Map<String, String> match(CharSequence content) {
+        if (getEngine() != RegexEngine.JAVA) {
+            /* the linear engine uses the prefilter by itself */
+            return newCollector().collect(compilePattern().matcher(content));
+        }
+        LiteralPrefilter literalPrefilter = getPrefilter();
+        if (literalPrefilter != null) {
+            return literalPrefilter.collect(compile(), content, newCollector());
+        }
+        return newCollector().collect(compile().matcher(content));
+    }
+
+    /**
+     * @return the prefilter of the pattern, or null when it does not start with a literal.
+     */
+    public LiteralPrefilter getPrefilter() {
+        if (!prefilterResolved) {
+            prefilter = LiteralPrefilter.of(pattern, flags);
+            prefilterResolved = true;
+        }
+        return prefilter;
+    }
+
+    @Override
+    public String toString() {
+        return mode + ":" + flags + ":" + getEngine() + ":" + pattern;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public MatchMode getMode() {
+        return mode;
+    }
+
+    public RegexEngine getEngine() {
+        return engine != null ? engine : RegexEngine.JAVA;
+    }
+
+}
@@ -0,0 +1,72 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+/**
+ * The regular expression engine used to match a pattern.
+ */
+public enum RegexEngine {
+
+    /** java.util.regex, through named-regexp: full syntax, backtracking */
+    JAVA("Java (full syntax)"),
+    /** {@link LinearPattern}: time proportional to the input, no back-references nor look-arounds */
+    LINEAR("Linear time (no back-references nor look-arounds)");
+
+    private final String displayName;
+
+    private RegexEngine(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Compiles a pattern through the JVM wide {@link PatternCache}.
+     * 
+     * @throws java.util.regex.PatternSyntaxException
+     *             if the pattern is invalid or not supported by this engine.
+     */
+    public CompiledPattern compile(String regex, int flags) {
+        return PatternCache.getInstance().get(regex, flags, this);
+    }
+
+    /**
+     * @return the engine with the given name, or {@link #JAVA} if unknown (older
+     *         configurations).
+     */
+    public static RegexEngine fromString(String name) {
+        if (name != null) {
+            for (RegexEngine engine : values()) {
+                if (engine.name().equals(name)) {
+                    return engine;
+                }
+            }
+        }
+        return JAVA;
+    }
+
+}
@@ -0,0 +1,224 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+import com.google.code.regexp.NamedPattern;
+
+/**
+ * Matches a {@link CompiledPattern} against a stream of characters while only keeping a bounded
+ * window of the input in memory.
+ * 
+ * Characters are pushed with {@link #feed(char[], int, int)}. Once the window is full, it is
+ * searched and its head is discarded, keeping the last half of the window so that matches
+ * spanning two chunks are still found. A match is only accepted when the matcher did not hit the
+ * end of the window, or when the whole input has been read. Until then, nothing after the search
+ * start is discarded, so that the leftmost match is the same as on the whole input. Matches
+ * longer than half the window cannot be found.
+ * 
+ * Matches are passed to a {@link MatchCollector} which decides when to stop.
+ * 
+ * {@link #flush()} may be called after every write of a process output: it only searches the
+ * window again once enough characters were added since the previous search, so that the total
+ * cost stays proportional to the length of the input.
+ */
+public class StreamingMatcher {
+
+    /** window size (in chars) used when none is given */
+    public static final int DEFAULT_WINDOW_SIZE = 1024 * 1024;
+
+    /** chars kept before the search start so that anchors and look-behinds stay accurate */
+    private static final int CONTEXT_SIZE = 64;
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final CompiledPattern pattern;
+    private final int windowSize;
+    private final MatchCollector collector;
+    private final StringBuilder window;
+    /** offset in the window where the next search starts */
+    private int searchStart = 0;
+    /** length of the window after the previous search */
+    private int scanned = 0;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    public StreamingMatcher(NamedPattern pattern, int windowSize, MatchCollector collector) {
+        this(new JavaPattern(pattern), windowSize, collector);
+    }
+
+    public StreamingMatcher(CompiledPattern pattern, int windowSize, MatchCollector collector)
+    {
+        if (windowSize < 4 * CONTEXT_SIZE) {
+            throw new IllegalArgumentException("window size too small: " + windowSize);
+        }
+        this.pattern = pattern;
+        this.windowSize = windowSize;
+        this.collector = collector;
+        this.window = new StringBuilder(windowSize);
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * Pushes characters to the matcher.
+     * 
+     * @return true if the collector does not need more matches.
+     */
+    public boolean feed(char[] cbuf, int off, int len) {
+        while (len > 0 && !isDone()) {
+            int count = Math.min(len, windowSize - window.length());
+            window.append(cbuf, off, count);
+            off += count;
+            len -= count;
+            if (window.length() >= windowSize) {
+                scan(false);
+            }
+        }
+        return isDone();
+    }
+
+    /**
+     * Searches the characters pushed so far without waiting for the window to be full. Used
+     * when the input arrives slowly (e.g. the output of a running process) and matches should be
+     * found as soon as possible. Matches which may still grow are kept for later.
+     * 
+     * The search is skipped until the characters added since the previous one are at least a
+     * quarter of the characters it would search again.
+     * 
+     * @return true if the collector does not need more matches.
+     */
+    public boolean flush() {
+        if (!isDone() && window.length() - scanned > (scanned - searchStart) / 4) {
+            scan(false);
+        }
+        return isDone();
+    }
+
+    /**
+     * Signals the end of the input and searches what remains in the window.
+     */
+    public void finish() {
+        if (!isDone()) {
+            scan(true);
+        }
+    }
+
+    public boolean isDone() {
+        return collector.isDone();
+    }
+
+    public MatchCollector getCollector() {
+        return collector;
+    }
+
+    /**
+     * Reads <code>reader</code> until the end or until <code>collector</code> does not need
+     * more matches.
+     * 
+     * @return the variables of the collector, or null if there was no match.
+     */
+    public static Map<String, String> find(NamedPattern pattern, Reader reader, int windowSize,
+            MatchCollector collector) throws IOException
+    {
+        return find(new JavaPattern(pattern), reader, windowSize, collector);
+    }
+
+    /**
+     * @see #find(NamedPattern, Reader, int, MatchCollector)
+     */
+    public static Map<String, String> find(CompiledPattern pattern, Reader reader,
+            int windowSize, MatchCollector collector) throws IOException
+    {
+        StreamingMatcher matcher = new StreamingMatcher(pattern, windowSize, collector);
+        final char[] buffer = new char[8192];
+        int length;
+        while ((length = reader.read(buffer)) != -1) {
+            if (matcher.feed(buffer, 0, length)) {
+                return collector.getVariables();
+            }
+        }
+        matcher.finish();
+        return collector.getVariables();
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private void scan(boolean endOfInput) {
+        search(endOfInput);
+        scanned = window.length();
+    }
+
+    private void search(boolean endOfInput) {
+        PatternMatcher matcher = pattern.matcher(window);
+        boolean found = false;
+        while (searchStart <= window.length() && (found = matcher.find(searchStart))) {
+            if (!endOfInput && matcher.hitEnd()) {
+                /* the match may grow with more input, or an earlier match which failed for lack
+                 * of input may complete: search again from the same start */
+                if (window.length() < windowSize) {
+                    discard(searchStart);
+                    return;
+                }
+                int cut = Math.max(searchStart, window.length() - windowSize / 2);
+                if (matcher.start() > cut) {
+                    /* the window is full: only keep what matches shorter than half of it need */
+                    discard(cut);
+                    return;
+                }
+            }
+            /* otherwise the match cannot be extended, or it fills the window */
+            if (collector.add(matcher.namedGroups())) {
+                return;
+            }
+            searchStart = matcher.end() > matcher.start() ? matcher.end() : matcher.end() + 1;
+        }
+        if (!endOfInput) {
+            if (!found && !matcher.hitEnd()) {
+                /* more input cannot make a match start before the end of the window */
+                searchStart = Math.max(searchStart, window.length());
+            }
+            discard(Math.max(window.length() - windowSize / 2, searchStart));
+        }
+    }
+
+    private void discard(int count) {
+        int context = Math.min(count, CONTEXT_SIZE);
+        window.delete(0, count - context);
+        searchStart = context;
+    }
+
+}
@@ -0,0 +1,222 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import hudson.remoting.Base64;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.WeakHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes extracted variables into a single string stored in build.xml instead of one XML
+ * element per key and value.
+ * 
+ * The variables are written as <code>key=value</code> lines (with <code>\\</code>,
+ * <code>\n</code>, <code>\r</code> and <code>=</code> in keys escaped). Above
+ * {@link #COMPRESSION_THRESHOLD} chars, the text is gzipped and base64 encoded. The result
+ * always starts with {@link #PLAIN_PREFIX} or {@link #GZIP_PREFIX}, since the first key could
+ * look like either. When decoding, keys and values are interned so that the builds of a job
+ * share the same strings in memory.
+ */
+public class VariablesCodec {
+
+    public static final int COMPRESSION_THRESHOLD = 4096;
+    public static final String PLAIN_PREFIX = "plain:";
+    public static final String GZIP_PREFIX = "gzip:";
+
+    /** weak so that strings no longer used by any build can be collected */
+    private static final Map<String, WeakReference<String>> INTERNED =
+            new WeakHashMap<String, WeakReference<String>>();
+
+    private VariablesCodec() {
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    public static String encode(Map<String, String> variables) {
+        StringBuilder text = new StringBuilder(PLAIN_PREFIX);
+        for (Entry<String, String> variable : variables.entrySet()) {
+            if (variable.getValue() == null) {
+                continue;
+            }
+            escape(variable.getKey(), true, text);
+            text.append('=');
+            escape(variable.getValue(), false, text);
+            text.append('\n');
+        }
+        if (text.length() - PLAIN_PREFIX.length() <= COMPRESSION_THRESHOLD) {
+            return text.toString();
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Writer out = new OutputStreamWriter(new GZIPOutputStream(bytes), "UTF-8");
+            out.append(text, PLAIN_PREFIX.length(), text.length());
+            out.close();
+            return GZIP_PREFIX + Base64.encode(bytes.toByteArray());
+        } catch (IOException e) {
+            /* cannot happen in memory */
+            return text.toString();
+        }
+    }
+
+    /**
+     * @return the decoded variables, sorted by name.
+     */
+    public static VariablesMap decode(String encoded) {
+        String text;
+        int start;
+        if (encoded.startsWith(PLAIN_PREFIX)) {
+            text = encoded;
+            start = PLAIN_PREFIX.length();
+        } else if (encoded.startsWith(GZIP_PREFIX)) {
+            text = uncompress(encoded.substring(GZIP_PREFIX.length()));
+            start = 0;
+        } else {
+            throw new IllegalArgumentException("Unknown format of variables");
+        }
+        Map<String, String> variables = new LinkedHashMap<String, String>();
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            int separator = findSeparator(text, start, end);
+            variables.put(intern(unescape(text, start, separator)),
+                    intern(unescape(text, separator + 1, end)));
+            start = end + 1;
+        }
+        return VariablesMap.copyOf(variables);
+    }
+
+    /**
+     * @return a canonical instance of <code>value</code>, shared by all the decoded builds.
+     */
+    public static String intern(String value) {
+        synchronized (INTERNED) {
+            WeakReference<String> reference = INTERNED.get(value);
+            String interned = reference != null ? reference.get() : null;
+            if (interned == null) {
+                interned = value;
+                INTERNED.put(interned, new WeakReference<String>(interned));
+            }
+            return interned;
+        }
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static void escape(String value, boolean key, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '\\':
+                out.append("\\\\");
+                break;
+            case '\n':
+                out.append("\\n");
+                break;
+            case '\r':
+                out.append("\\r");
+                break;
+            case '=':
+                out.append(key ? "\\=" : "=");
+                break;
+            default:
+                out.append(c);
+                break;
+            }
+        }
+    }
+
+    private static int findSeparator(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '\\') {
+                i++;
+            } else if (text.charAt(i) == '=') {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable: " + text.substring(start, end));
+    }
+
+    private static String unescape(String text, int start, int end) {
+        int first = start;
+        while (first < end && text.charAt(first) != '\\') {
+            first++;
+        }
+        if (first == end) {
+            return text.substring(start, end);
+        }
+        StringBuilder value = new StringBuilder(end - start);
+        value.append(text, start, first);
+        for (int i = first; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < end) {
+                c = text.charAt(++i);
+                value.append(c == 'n' ? '\n' : c == 'r' ? '\r' : c);
+            } else {
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+
+    private static String uncompress(String base64) {
+        try {
+            Reader in = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(
+                    Base64.decode(base64))), "UTF-8");
+            try {
+                StringBuilder text = new StringBuilder();
+                char[] buffer = new char[8192];
+                int length;
+                while ((length = in.read(buffer)) != -1) {
+                    text.append(buffer, 0, length);
+                }
+                return text.toString();
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupted variables", e);
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Formats the extracted variables for the build log, and stores their full listing in the build
+ * directory so that large extractions do not flood the log.
+ */
+public class VariablesListing {
+
+    public static final String FILE_NAME = "variables-extractor-listing.txt";
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * @return the <code>NAME = value</code> lines of all the variables, sorted by name.
+     */
+    public static List<String> lines(Map<String, String> vars) {
+        List<String> lines = new ArrayList<String>(vars.size());
+        for (Entry<String, String> entry : sorted(vars).entrySet()) {
+            lines.add(entry.getKey() + " = " + entry.getValue());
+        }
+        return lines;
+    }
+
+    /**
+     * @return the lines of the first <code>maxEntries</code> variables, sorted by name, with
+     *         their values truncated to <code>maxValueLength</code> characters and line breaks
+     *         escaped, followed by the number of variables left out.
+     */
+    public static List<String> summary(Map<String, String> vars, int maxEntries,
+            int maxValueLength)
+    {
+        List<String> lines = new ArrayList<String>(Math.min(vars.size(), maxEntries) + 1);
+        for (Entry<String, String> entry : sorted(vars).entrySet()) {
+            if (lines.size() == maxEntries) {
+                lines.add("... " + (vars.size() - maxEntries) + " more variable(s)");
+                break;
+            }
+            lines.add(entry.getKey() + " = " + truncate(entry.getValue(), maxValueLength));
+        }
+        return lines;
+    }
+
+    /**
+     * Writes the full listing in <code>rootDir</code>, replacing the previous one.
+     */
+    public static void write(File rootDir, Map<String, String> vars) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
+                getFile(rootDir)), "UTF-8"));
+        try {
+            for (String line : lines(vars)) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @return the file holding the full listing of the build stored in <code>rootDir</code>.
+     *         It only exists if the variables were summarized in the build log.
+     */
+    public static File getFile(File rootDir) {
+        return new File(rootDir, FILE_NAME);
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static Map<String, String> sorted(Map<String, String> vars) {
+        if (vars instanceof TreeMap<?, ?>) {
+            return vars;
+        }
+        return new TreeMap<String, String>(vars);
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(Math.min(value.length(), maxLength) + 32);
+        int end = Math.min(value.length(), maxLength);
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '\n') {
+                builder.append("\\n");
+            } else if (c == '\r') {
+                builder.append("\\r");
+            } else {
+                builder.append(c);
+            }
+        }
+        if (end < value.length()) {
+            builder.append("... (").append(value.length()).append(" characters)");
+        }
+        return builder.toString();
+    }
+
+}
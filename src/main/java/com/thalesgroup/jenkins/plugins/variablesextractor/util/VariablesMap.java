@@ -0,0 +1,157 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable map of variables stored in two arrays sorted by key, exactly sized.
+ * 
+ * Lookups are binary searches and iterations walk the arrays without allocating a node per
+ * entry, so a single instance can be handed to every reader (the build environment, the web
+ * page, the remote API) without being copied.
+ */
+public final class VariablesMap extends AbstractMap<String, String> implements Serializable {
+
+    private static final long serialVersionUID = -6180416862402255390L;
+
+    public static final VariablesMap EMPTY = new VariablesMap(new String[0], new String[0]);
+
+    private final String[] keys;
+    private final String[] values;
+    private transient Set<Entry<String, String>> entrySet;
+
+    private VariablesMap(String[] keys, String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @return <code>variables</code> itself if it is already a {@link VariablesMap}, a sorted
+     *         copy otherwise. Null values are dropped.
+     */
+    public static VariablesMap copyOf(Map<String, String> variables) {
+        if (variables instanceof VariablesMap) {
+            return (VariablesMap) variables;
+        }
+        String[] keys = new String[variables.size()];
+        int size = 0;
+        for (Entry<String, String> variable : variables.entrySet()) {
+            if (variable.getValue() != null) {
+                keys[size++] = variable.getKey();
+            }
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        keys = size == keys.length ? keys : Arrays.copyOf(keys, size);
+        Arrays.sort(keys);
+        String[] values = new String[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = variables.get(keys[i]);
+        }
+        return new VariablesMap(keys, values);
+    }
+
+    /************
+     * OVERRIDE *
+     ************/
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private int indexOf(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        return Arrays.binarySearch(keys, key);
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, String>> {
+
+        private int index;
+
+        public boolean hasNext() {
+            return index < keys.length;
+        }
+
+        public Entry<String, String> next() {
+            if (index >= keys.length) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, String> entry = new SimpleImmutableEntry<String, String>(keys[index],
+                    values[index]);
+            index++;
+            return entry;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
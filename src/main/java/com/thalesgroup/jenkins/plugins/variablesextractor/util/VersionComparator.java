@@ -0,0 +1,82 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * Compares version strings such as <code>1.10.2-beta</code>: the parts separated by
+ * <code>.</code>, <code>-</code> or <code>_</code> are compared one by one, numerically when both
+ * are numbers. A version with more parts is higher (<code>1.2.1 &gt; 1.2</code>). Null is the
+ * lowest version.
+ */
+public class VersionComparator implements Comparator<String>, Serializable {
+
+    private static final long serialVersionUID = -8124035476510384277L;
+
+    public static final VersionComparator INSTANCE = new VersionComparator();
+
+    public int compare(String v1, String v2) {
+        if (v1 == null || v2 == null) {
+            return v1 == null ? (v2 == null ? 0 : -1) : 1;
+        }
+        String[] parts1 = v1.split("[.\\-_]");
+        String[] parts2 = v2.split("[.\\-_]");
+        for (int i = 0; i < Math.min(parts1.length, parts2.length); i++) {
+            int result = compareParts(parts1[i], parts2[i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return parts1.length - parts2.length;
+    }
+
+    private static int compareParts(String p1, String p2) {
+        if (isNumber(p1) && isNumber(p2)) {
+            /* compare by length first to avoid overflows */
+            String n1 = p1.replaceFirst("^0+(?=.)", "");
+            String n2 = p2.replaceFirst("^0+(?=.)", "");
+            if (n1.length() != n2.length()) {
+                return n1.length() - n2.length();
+            }
+            return n1.compareTo(n2);
+        }
+        return p1.compareTo(p2);
+    }
+
+    private static boolean isNumber(String part) {
+        if (part.length() == 0) {
+            return false;
+        }
+        for (int i = 0; i < part.length(); i++) {
+            if (!Character.isDigit(part.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,205 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the values of simple paths from an XML document with a StAX parser, and stops as soon
+ * as all of them are resolved.
+ * 
+ * Paths are absolute element paths (<code>/project/version</code>), optionally ending with an
+ * attribute (<code>/project/build/plugin/@id</code>). Elements are matched by their local name,
+ * whatever their namespace. The first element of a path wins and its value is its own text,
+ * trimmed, without the text of its children. A path may be nested in another one
+ * (<code>/a/b</code> and <code>/a/b/c</code>).
+ */
+public class XmlPathReader {
+
+    public static final PathMappings.Normalizer NORMALIZER = new PathMappings.Normalizer() {
+
+        private static final long serialVersionUID = 6127706316040516873L;
+
+        public String normalize(String path) {
+            return XmlPathReader.normalize(path);
+        }
+    };
+
+    /**********
+     * FIELDS *
+     **********/
+
+    private final PathMappings mappings;
+
+    /***************
+     * CONSTRUCTOR *
+     ***************/
+
+    public XmlPathReader(PathMappings mappings) {
+        this.mappings = mappings;
+    }
+
+    /**********
+     * PUBLIC *
+     **********/
+
+    /**
+     * @throws IllegalArgumentException
+     *             when the path is not supported.
+     */
+    public static String normalize(String path) {
+        String normalized = path.trim();
+        if (normalized.endsWith("/") && normalized.length() > 1) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        if (!normalized.startsWith("/")) {
+            normalized = "/" + normalized;
+        }
+        String[] steps = normalized.substring(1).split("/", -1);
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < steps.length; i++) {
+            String step = steps[i];
+            boolean attribute = step.startsWith("@");
+            /* namespace prefixes are ignored, like when reading */
+            String name = step.substring(Math.max(step.indexOf(':') + 1, attribute ? 1 : 0));
+            if (name.length() == 0 || (attribute && i < steps.length - 1)
+                    || !isSimpleName(name))
+            {
+                throw new IllegalArgumentException("Unsupported XML path: " + path
+                        + " (/element/.../element or /element/.../@attribute expected)");
+            }
+            result.append(attribute ? "/@" : "/").append(name);
+        }
+        return result.toString();
+    }
+
+    /**
+     * @return the values of the resolved paths.
+     */
+    public Map<String, String> read(InputStream in) throws IOException {
+        Map<String, String> values = new LinkedHashMap<String, String>();
+        XMLStreamReader xml;
+        try {
+            xml = newFactory().createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid XML: " + e.getMessage(), e);
+        }
+        try {
+            StringBuilder path = new StringBuilder();
+            int[] lengths = new int[16];
+            /* text of the open elements being resolved, indexed by depth */
+            StringBuilder[] texts = new StringBuilder[16];
+            int depth = 0;
+            while (values.size() < mappings.size() && xml.hasNext()) {
+                switch (xml.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (depth == lengths.length) {
+                        lengths = Arrays.copyOf(lengths, depth * 2);
+                        texts = Arrays.copyOf(texts, depth * 2);
+                    }
+                    lengths[depth++] = path.length();
+                    path.append('/').append(xml.getLocalName());
+                    String current = path.toString();
+                    if (mappings.contains(current) && !values.containsKey(current)) {
+                        texts[depth - 1] = new StringBuilder();
+                    }
+                    for (int i = 0; i < xml.getAttributeCount(); i++) {
+                        String attribute = current + "/@" + xml.getAttributeLocalName(i);
+                        if (mappings.contains(attribute) && !values.containsKey(attribute)) {
+                            values.put(attribute, xml.getAttributeValue(i));
+                        }
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (depth > 0 && texts[depth - 1] != null) {
+                        texts[depth - 1].append(xml.getText());
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    if (texts[depth] != null) {
+                        /* the first element of the path wins */
+                        String resolved = path.toString();
+                        if (!values.containsKey(resolved)) {
+                            values.put(resolved, texts[depth].toString().trim());
+                        }
+                        texts[depth] = null;
+                    }
+                    path.setLength(lengths[depth]);
+                    break;
+                default:
+                    break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid XML: " + e.getMessage(), e);
+        } finally {
+            try {
+                xml.close();
+            } catch (XMLStreamException e) {
+                /* the stream is closed by the caller */
+            }
+        }
+        return values;
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    /**
+     * Neither DTDs nor external entities are loaded: they could read other files of the node.
+     */
+    private static XMLInputFactory newFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    private static boolean isSimpleName(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '*' || c == '[' || c == ']' || c == '(' || c == ')' || c == '@'
+                    || Character.isWhitespace(c))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
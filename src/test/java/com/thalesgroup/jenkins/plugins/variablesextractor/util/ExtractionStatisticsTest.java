@@ -0,0 +1,115 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ExtractionStatisticsTest {
+
+    private static ExtractionMetrics metrics(long duration, long bytes, boolean cacheHit) {
+        return metrics("Extractor", duration, bytes, cacheHit);
+    }
+
+    private static ExtractionMetrics metrics(String extractor, long duration, long bytes,
+            boolean cacheHit)
+    {
+        ExtractionMetrics metrics = new ExtractionMetrics(extractor);
+        metrics.setDuration(duration);
+        metrics.setBytes(bytes);
+        metrics.setCacheHit(cacheHit);
+        return metrics;
+    }
+
+    @Test
+    public void leavesCacheHitsOutOfThroughput() {
+        ExtractionStatistics statistics = new ExtractionStatistics();
+        statistics.record("job", metrics(100, 1000, false), false);
+        statistics.record("job", metrics(300, 0, true), false);
+        ExtractionStatistics.Counters counters = statistics.getExtractors().get(0);
+        assertEquals(2, counters.getRuns());
+        assertEquals(1, counters.getCacheHits());
+        assertEquals(400, counters.getTotalMillis());
+        assertEquals(200, counters.getAverageMillis());
+        assertEquals(100, counters.getReadMillis());
+        assertEquals(1000, counters.getBytes());
+        assertEquals(10000, counters.getThroughput());
+    }
+
+    @Test
+    public void hasNoThroughputWithOnlyCacheHits() {
+        ExtractionStatistics statistics = new ExtractionStatistics();
+        statistics.record("job", metrics(10, 0, true), false);
+        assertEquals(0, statistics.getJobs().get(0).getThroughput());
+    }
+
+    @Test
+    public void countsSharedReadsOnce() {
+        ExtractionStatistics statistics = new ExtractionStatistics();
+        statistics.record("job", Arrays.asList(metrics("A", 100, 1001, false),
+                metrics("B", 100, 1001, false), metrics("C", 100, 1001, false)), false);
+        ExtractionStatistics.Counters job = statistics.getJobs().get(0);
+        assertEquals(3, job.getRuns());
+        assertEquals(100, job.getTotalMillis());
+        assertEquals(100, job.getReadMillis());
+        assertEquals(1001, job.getBytes());
+        assertEquals(100, job.getMaxMillis());
+        List<ExtractionStatistics.Counters> extractors = statistics.getExtractors();
+        assertEquals(34, extractors.get(0).getTotalMillis());
+        assertEquals(334, extractors.get(0).getBytes());
+        assertEquals(33, extractors.get(1).getTotalMillis());
+        assertEquals(334, extractors.get(1).getBytes());
+        assertEquals(33, extractors.get(2).getTotalMillis());
+        assertEquals(333, extractors.get(2).getBytes());
+        /* the latency is the one of the whole read */
+        assertEquals(100, extractors.get(2).getMaxMillis());
+    }
+
+    @Test
+    public void keepsTheJobsWhichRanLast() {
+        ExtractionStatistics statistics = new ExtractionStatistics();
+        for (int i = 0; i < ExtractionStatistics.MAX_JOBS + 10; i++) {
+            statistics.record("job" + i, metrics(1, 1, false), false);
+        }
+        statistics.record("job" + ExtractionStatistics.MAX_JOBS, metrics(1, 1, false), false);
+        statistics.record("new", metrics(1, 1, false), false);
+        List<String> names = new ArrayList<String>();
+        for (ExtractionStatistics.Counters counters : statistics.getJobs()) {
+            names.add(counters.getName());
+        }
+        assertEquals(ExtractionStatistics.MAX_JOBS, names.size());
+        assertEquals(false, names.contains("job10"));
+        assertEquals(true, names.contains("job11"));
+        assertEquals(true, names.contains("new"));
+        assertEquals(2, statistics.getExtractors().get(0).getRuns()
+                - ExtractionStatistics.MAX_JOBS - 10);
+    }
+
+}
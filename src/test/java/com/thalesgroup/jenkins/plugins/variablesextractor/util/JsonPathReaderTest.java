@@ -0,0 +1,167 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class JsonPathReaderTest {
+
+    private static final String DOCUMENT = "\uFEFF{\n"
+            + "  \"name\": \"plugin\",\n"
+            + "  \"version\": \"1.0\\u00e9\\n\\\"quoted\\\"\\/\",\n"
+            + "  \"count\": -12.5e3, \"enabled\": true, \"missing\": null,\n"
+            + "  \"key.with.dots\": \"dots\",\n"
+            + "  \"skipped\": {\"deep\": [1, {\"a\": \"b\"}, [], {}]},\n"
+            + "  \"modules\": [ {\"name\": \"core\"},\n"
+            + "    {\"name\": \"ui\", \"tags\": [\"x\", \"y\"]} ],\n"
+            + "  \"name\": \"duplicate\"\n"
+            + "}";
+
+    @Test
+    public void normalize() {
+        assertEquals("$.version", JsonPathReader.normalize("version"));
+        assertEquals("$.version", JsonPathReader.normalize(" $.version "));
+        assertEquals("$.a.b[0].c", JsonPathReader.normalize("a.b[ 0 ].c"));
+        assertEquals("$[2]", JsonPathReader.normalize("[2]"));
+        assertEquals("$.a\\.b\\[c\\\\", JsonPathReader.normalize("$['a.b[c\\']"));
+        assertEquals("$.a b", JsonPathReader.normalize("$[\"a b\"]"));
+        assertUnsupported("$.*");
+        assertUnsupported("a..b");
+        assertUnsupported("a[-1]");
+        assertUnsupported("a[x]");
+        assertUnsupported("a['b'");
+        assertUnsupported("a[0");
+    }
+
+    @Test
+    public void values() throws IOException {
+        Map<String, String> variables = read(DOCUMENT, "NAME = name", "VERSION = $.version",
+                "COUNT = count", "ENABLED = enabled", "MISSING = missing",
+                "DOTS = $['key.with.dots']", "MODULE = modules[1].name",
+                "TAG = modules[1].tags[1]", "OBJECT = skipped", "ARRAY = modules",
+                "NONE = modules[2].name");
+        assertEquals("plugin", variables.get("NAME"));
+        assertEquals("1.0\u00e9\n\"quoted\"/", variables.get("VERSION"));
+        assertEquals("-12.5e3", variables.get("COUNT"));
+        assertEquals("true", variables.get("ENABLED"));
+        assertEquals("dots", variables.get("DOTS"));
+        assertEquals("ui", variables.get("MODULE"));
+        assertEquals("y", variables.get("TAG"));
+        assertFalse(variables.containsKey("MISSING"));
+        assertFalse(variables.containsKey("OBJECT"));
+        assertFalse(variables.containsKey("ARRAY"));
+        assertFalse(variables.containsKey("NONE"));
+        assertEquals(7, variables.size());
+    }
+
+    @Test
+    public void rootValue() throws IOException {
+        assertEquals("42", read(" 42 ", "V = $").get("V"));
+        assertEquals("a", read("[\"a\"]", "V = [0]").get("V"));
+    }
+
+    @Test
+    public void stopsOnceAllPathsAreResolved() throws IOException {
+        assertEquals("1", read("{\"a\": 1, \"b\": [ this is not JSON", "A = a").get("A"));
+    }
+
+    @Test
+    public void invalidDocuments() {
+        assertInvalid("{\"a\" 1}");
+        assertInvalid("{\"a\": 1 \"b\": 2}");
+        assertInvalid("[1 2]");
+        assertInvalid("{a: 1}");
+        assertInvalid("{\"a\": \"unterminated");
+        assertInvalid("{\"a\": \"\\x\"}");
+        assertInvalid("{\"a\": \"\\u12g4\"}");
+        assertInvalid("{\"a\": }");
+    }
+
+    @Test
+    public void depthIsLimited() throws IOException {
+        StringBuilder nested = new StringBuilder();
+        for (int i = 0; i < JsonPathReader.MAX_DEPTH - 1; i++) {
+            nested.append(i % 2 == 0 ? "[" : "{\"a\":");
+        }
+        String prefix = nested.toString();
+        StringBuilder allowed = new StringBuilder(prefix).append("[1]");
+        for (int i = JsonPathReader.MAX_DEPTH - 2; i >= 0; i--) {
+            allowed.append(i % 2 == 0 ? "]" : "}");
+        }
+        assertTrue(read(allowed.toString(), "V = other").isEmpty());
+
+        assertInvalid(prefix + "[[1]]");
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            deep.append('[');
+        }
+        assertInvalid(deep.toString());
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static Map<String, String> read(String document, String... mappings)
+            throws IOException
+    {
+        StringBuilder text = new StringBuilder();
+        for (String mapping : mappings) {
+            text.append(mapping).append('\n');
+        }
+        PathMappings pathMappings = PathMappings.parse(text.toString(),
+                JsonPathReader.NORMALIZER);
+        return pathMappings.toVariables(new JsonPathReader(pathMappings).read(new StringReader(
+                document)));
+    }
+
+    private static void assertUnsupported(String path) {
+        try {
+            JsonPathReader.normalize(path);
+            fail("accepted: " + path);
+        } catch (IllegalArgumentException e) {
+            /* expected */
+        }
+    }
+
+    private static void assertInvalid(String document) {
+        try {
+            read(document, "V = $.x.y");
+            fail("accepted: " + document);
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid JSON"));
+        }
+    }
+
+}
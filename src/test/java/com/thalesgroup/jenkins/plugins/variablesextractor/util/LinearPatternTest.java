@@ -0,0 +1,338 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Test;
+
+/**
+ * Checks the matches of the linear engine against java.util.regex.
+ */
+public class LinearPatternTest {
+
+    @Test
+    public void literalsAndClasses() {
+        assertSameMatches("abc", 0, "", "abc", "xxabcxabc", "ab");
+        assertSameMatches("a\\.b\\t\\x41\\u0042\\0101", 0, "a.b\tABA", "axb\tABA");
+        assertSameMatches("[a-c][^a-c\\d][\\w.-]\\S\\W", 0, "axb.!", "ab-c d", "c-_x?");
+        assertSameMatches("\\d+\\s*\\D", 0, "12 x", "1\t\n2", "123");
+        assertSameMatches("\\Qa.b*\\E+", 0, "a.b**", "a.bb", "xa.b*");
+    }
+
+    @Test
+    public void greedyAndLazyQuantifiers() {
+        String[] inputs = { "", "a", "aaaa", "<a><bb>", "aab", "aaab aab" };
+        assertSameMatches("a+", 0, inputs);
+        assertSameMatches("a+?", 0, inputs);
+        assertSameMatches("a*?b", 0, inputs);
+        assertSameMatches("a??b", 0, inputs);
+        assertSameMatches("(?P<X>a{2,3}?)", 0, inputs);
+        assertSameMatches("(?P<X>a{2,})", 0, inputs);
+        assertSameMatches("(?P<X>a{2})", 0, inputs);
+        assertSameMatches("<(?P<T>.+?)>", 0, inputs);
+        assertSameMatches("<(?P<T>.+)>", 0, inputs);
+        assertSameMatches("(?P<A>a*)(?P<B>a*?)(?P<C>b?)", 0, inputs);
+    }
+
+    @Test
+    public void alternationPriority() {
+        String[] inputs = { "abcd", "abd", "foobar", "foo", "ab", "abb" };
+        assertSameMatches("(?P<A>a|ab)(?P<B>c|bcd)", 0, inputs);
+        assertSameMatches("foo|foobar", 0, inputs);
+        assertSameMatches("foobar|foo", 0, inputs);
+        assertSameMatches("(?P<X>ab|a)b?", 0, inputs);
+        assertSameMatches("(?P<X>a|ab)(?P<Y>b*)", 0, inputs);
+        assertSameMatches("(?:(?P<X>a)|(?P<Y>b))+", 0, inputs);
+    }
+
+    @Test
+    public void anchorsAndLineTerminators() {
+        String[] inputs = { "one\ntwo\r\nthree\r\n", "a\rb\u0085c\u2028", "\n\n", "x\r\n" };
+        for (int flags : new int[] { 0, Pattern.MULTILINE, Pattern.UNIX_LINES,
+                Pattern.MULTILINE | Pattern.UNIX_LINES }) {
+            assertSameMatches("^(?P<L>\\w+)$", flags, inputs);
+            assertSameMatches("$", flags, inputs);
+            assertSameMatches("^", flags, inputs);
+            assertSameMatches("\\w\\Z", flags, inputs);
+            assertSameMatches("\\Z", flags, inputs);
+            assertSameMatches("\\A\\w+|\\w+\\z", flags, inputs);
+            assertSameMatches(".+", flags, inputs);
+        }
+    }
+
+    @Test
+    public void dotall() {
+        assertSameMatches("a.b", 0, "a\nb", "a\rb", "axb");
+        assertSameMatches("a.b", Pattern.DOTALL, "a\nb", "a\rb", "axb");
+        assertSameMatches("(?s)<(?P<T>.*)>", 0, "<a\nb>", "<\r\n>");
+        assertSameMatches("(?s:a.)b.", 0, "a\nb\n", "a\nbx");
+    }
+
+    @Test
+    public void wordBoundaries() {
+        String[] inputs = { "foo bar", "foo_bar", "a", "", " x ", "\u00e9t\u00e9" };
+        assertSameMatches("\\b", 0, inputs);
+        assertSameMatches("\\B", 0, inputs);
+        assertSameMatches("\\b\\w+\\b", 0, inputs);
+        assertSameMatches("\\Bo", 0, inputs);
+    }
+
+    @Test
+    public void comments() {
+        String regex = " (?P<K> \\w+ ) \\s* = \\s* (?P<V> \\S+ ) # comment\n";
+        String[] inputs = { "key = value", "a=b # c", "k= v\nk2 =v2" };
+        assertSameMatches(regex, Pattern.COMMENTS, inputs);
+        assertSameMatches("(?x)" + regex, 0, inputs);
+        assertSameMatches("a\\ b \\# c", Pattern.COMMENTS, "a b#c", "a b #c", "ab#c");
+    }
+
+    @Test
+    public void caseInsensitive() {
+        String[] inputs = { "ABC", "abc", "aBc", "\u00c9T\u00c9", "\u00e9t\u00e9", "K" };
+        assertSameMatches("abc", Pattern.CASE_INSENSITIVE, inputs);
+        assertSameMatches("[a-c]+", Pattern.CASE_INSENSITIVE, inputs);
+        assertSameMatches("\u00e9t\u00e9", Pattern.CASE_INSENSITIVE, inputs);
+        assertSameMatches("\u00e9t\u00e9", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE,
+                inputs);
+        assertSameMatches("(?iu)[\u00e9]", 0, inputs);
+        assertSameMatches("a(?i)b(?-i)c", 0, inputs);
+        assertSameMatches("(?i:a)bc", 0, inputs);
+    }
+
+    @Test
+    public void emptyMatches() {
+        String[] inputs = { "", "baaac", "xx" };
+        assertSameMatches("", 0, inputs);
+        assertSameMatches("a*", 0, inputs);
+        assertSameMatches("x?", 0, inputs);
+        assertSameMatches("(?P<E>)", 0, inputs);
+        assertSameMatches("a*|b", 0, inputs);
+    }
+
+    @Test
+    public void findFromIndex() {
+        LinearPattern pattern = LinearPattern.compile("(?P<N>\\d+)", 0);
+        Matcher expected = Pattern.compile("(?<N>\\d+)").matcher("a12b345");
+        PatternMatcher actual = pattern.matcher("a12b345");
+        for (int start = 0; start <= 7; start++) {
+            assertEquals(expected.find(start), actual.find(start));
+            if (start < 6) {
+                assertEquals(expected.start(), actual.start());
+                assertEquals(expected.end(), actual.end());
+                assertEquals(expected.group("N"), actual.namedGroups().get("N"));
+            }
+        }
+    }
+
+    @Test
+    public void hitEndOfPartialMatches() {
+        assertTrue(find("VERSION=(?P<V>\\d+)", "VERSION=12").hitEnd());
+        assertFalse(find("VERSION=(?P<V>\\d+)", "VERSION=12\n").hitEnd());
+
+        PatternMatcher miss = LinearPattern.compile("VERSION=\\d+", 0).matcher("a VERS");
+        assertFalse(miss.find());
+        assertTrue(miss.hitEnd());
+        assertTrue(find("a$", "a").hitEnd());
+        assertTrue(find("a\\b", "a").hitEnd());
+    }
+
+    @Test
+    public void noBacktracking() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            input.append('a');
+        }
+        PatternMatcher matcher = LinearPattern.compile("(a*)*b|(a|aa)+c", 0).matcher(input);
+        assertFalse(matcher.find());
+    }
+
+    @Test
+    public void rejectedConstructs() {
+        assertRejected("(a)\\1", 0);
+        assertRejected("(?P<X>a)\\k<X>", 0);
+        assertRejected("a(?=b)", 0);
+        assertRejected("a(?!b)", 0);
+        assertRejected("(?<=a)b", 0);
+        assertRejected("(?>a+)b", 0);
+        assertRejected("a*+", 0);
+        assertRejected("\\p{L}", 0);
+        assertRejected("[a[bc]]", 0);
+        assertRejected("[a-z&&[^b]]", 0);
+        assertRejected("\\Ga", 0);
+        assertRejected("\\x{1F600}", 0);
+        assertRejected("a", Pattern.LITERAL);
+        assertRejected("(?:a{100}){100}{100}", 0);
+        /* invalid for both engines */
+        assertRejected("(a", 0);
+        assertRejected("a{2,1}", 0);
+    }
+
+    /**
+     * Differential test on random patterns and inputs. Repeated groups which can match an empty
+     * string are left out since an empty iteration does not end their repetition.
+     */
+    @Test
+    public void randomPatterns() {
+        Random random = new Random(42);
+        String alphabet = "abcAB_x1 \n\r.";
+        int[] flags = { 0, Pattern.CASE_INSENSITIVE, Pattern.MULTILINE, Pattern.DOTALL,
+                Pattern.MULTILINE | Pattern.DOTALL | Pattern.CASE_INSENSITIVE,
+                Pattern.UNIX_LINES | Pattern.MULTILINE };
+        for (int i = 0; i < 2000; i++) {
+            String regex = new PatternGenerator(random).generate(2);
+            String[] inputs = new String[10];
+            for (int j = 0; j < inputs.length; j++) {
+                StringBuilder input = new StringBuilder();
+                int length = random.nextInt(12);
+                for (int k = 0; k < length; k++) {
+                    input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                inputs[j] = input.toString();
+            }
+            assertSameMatches(regex, flags[random.nextInt(flags.length)], inputs);
+        }
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static PatternMatcher find(String regex, String input) {
+        PatternMatcher matcher = LinearPattern.compile(regex, 0).matcher(input);
+        assertTrue(matcher.find());
+        return matcher;
+    }
+
+    private static void assertRejected(String regex, int flags) {
+        try {
+            LinearPattern.compile(regex, flags);
+            fail("accepted: " + regex);
+        } catch (PatternSyntaxException e) {
+            /* expected */
+        }
+    }
+
+    /**
+     * Compares all the successive matches. The linear engine may report hitEnd where the Java
+     * engine does not (it follows all the paths at once), never the opposite.
+     */
+    private static void assertSameMatches(String regex, int flags, String... inputs) {
+        LinearPattern linear = LinearPattern.compile(regex, flags);
+        Pattern java = Pattern.compile(regex.replace("(?P<", "(?<"), flags);
+        for (String input : inputs) {
+            String message = "/" + regex + "/" + flags + " on \"" + input.replace("\n", "\\n")
+                    .replace("\r", "\\r") + "\"";
+            Matcher expected = java.matcher(input);
+            PatternMatcher actual = linear.matcher(input);
+            while (true) {
+                boolean found = expected.find();
+                assertEquals(message, found, actual.find());
+                if (expected.hitEnd()) {
+                    assertTrue(message + " hitEnd", actual.hitEnd());
+                }
+                if (!found) {
+                    break;
+                }
+                assertEquals(message + " start", expected.start(), actual.start());
+                assertEquals(message + " end", expected.end(), actual.end());
+                Map<String, String> groups = new LinkedHashMap<String, String>();
+                for (String name : linear.getGroupNames()) {
+                    groups.put(name, expected.group(name));
+                }
+                assertEquals(message + " groups", groups, actual.namedGroups());
+            }
+        }
+    }
+
+    private static class PatternGenerator {
+
+        private static final String[] ATOMS = { "a", "b", "c", ".", "\\d", "\\w", "\\s", "\\W",
+                "[a-c]", "[^ab]", "[\\d_]", "^", "$", "\\b", "\\B", "\\A", "\\z", "\\Z", "\\n",
+                "x", "A", "\\Qa.\\E", "[A-C]", "\\r" };
+        private static final String[] QUANTIFIERS = { "*", "+", "?", "*?", "+?", "??", "{2}",
+                "{1,3}", "{0,2}?", "{2,}" };
+        private static final String[] FLAGS = { "i", "m", "s", "-i", "im" };
+        private static final Pattern MAY_BE_EMPTY = Pattern.compile(
+                ".*(\\?|\\*|\\{0|\\^|\\$|\\\\[bBAzZ]).*");
+
+        private final Random random;
+        private int groups = 0;
+
+        public PatternGenerator(Random random) {
+            this.random = random;
+        }
+
+        public String generate(int depth) {
+            StringBuilder regex = new StringBuilder();
+            int count = 1 + random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                String atom;
+                boolean quantifiable;
+                if (depth > 0 && random.nextInt(10) < 3) {
+                    String inner = generate(depth - 1);
+                    if (random.nextBoolean()) {
+                        inner += "|" + generate(depth - 1);
+                    }
+                    switch (random.nextInt(4)) {
+                    case 0:
+                        atom = "(?P<G" + (groups++) + ">" + inner + ")";
+                        break;
+                    case 1:
+                        atom = "(?:" + inner + ")";
+                        break;
+                    case 2:
+                        atom = "(" + inner + ")";
+                        break;
+                    default:
+                        atom = "(?" + FLAGS[random.nextInt(FLAGS.length)] + ":" + inner + ")";
+                        break;
+                    }
+                    quantifiable = !MAY_BE_EMPTY.matcher(inner).matches();
+                } else {
+                    atom = ATOMS[random.nextInt(ATOMS.length)];
+                    quantifiable = !MAY_BE_EMPTY.matcher(atom).matches();
+                }
+                int quantifier = random.nextInt(12);
+                if (quantifiable && quantifier < QUANTIFIERS.length) {
+                    atom += QUANTIFIERS[quantifier];
+                }
+                regex.append(atom);
+            }
+            return regex.toString();
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.nio.CharBuffer;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.google.code.regexp.NamedPattern;
+
+public class LiteralPrefilterTest {
+
+    @Test
+    public void literalPrefix() {
+        assertPrefix("abc", "abc");
+        assertPrefix("ab", "ab+");
+        assertPrefix("ab", "ab+?c");
+        assertPrefix("a", "ab*");
+        assertPrefix("a", "ab?c");
+        assertPrefix("a", "ab{2}");
+        assertPrefix(null, "a{2}");
+        assertPrefix("version=", "version=(?P<V>.+)");
+        assertPrefix("a.b", "a\\.b");
+        assertPrefix("a\tb\n", "a\\tb\\n\\d");
+        assertPrefix("ab", "ab\\x41");
+        assertPrefix("ab", "ab\\b");
+        assertPrefix("ab", "ab[cd]");
+        assertPrefix("ab", "ab(?i)c");
+        assertPrefix(null, "(?i)abc");
+        assertPrefix(null, "^abc");
+        assertPrefix(null, ".abc");
+        assertPrefix(null, "ab|cd");
+        assertPrefix(null, "abc(?:d|e)");
+        assertPrefix("ab", "ab[|]");
+        assertPrefix(null, "\\Qab\\E");
+        assertPrefix(null, "ab\\Q.\\E");
+        assertPrefix(null, "[ab]c");
+    }
+
+    @Test
+    public void literalPrefixWithComments() {
+        assertEquals("abc", LiteralPrefilter.getLiteralPrefix(" a b c ", true));
+        assertEquals("ab", LiteralPrefilter.getLiteralPrefix("a b c *", true));
+        assertEquals("ab", LiteralPrefilter.getLiteralPrefix("a b # c", true));
+        assertEquals("a b", LiteralPrefilter.getLiteralPrefix("a\\ b", true));
+        assertEquals("a b c", LiteralPrefilter.getLiteralPrefix("a b c *", false));
+    }
+
+    @Test
+    public void prefilterOnlyForLongEnoughSafeLiterals() {
+        assertNull(LiteralPrefilter.of("a.+", 0));
+        assertNotNull(LiteralPrefilter.of("ab.+", 0));
+        assertNotNull(LiteralPrefilter.of("ab.+", Pattern.CASE_INSENSITIVE));
+        assertNull(LiteralPrefilter.of("ab.+", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+        assertNull(LiteralPrefilter.of("\u00e9t\u00e9.+", Pattern.CASE_INSENSITIVE));
+        assertNotNull(LiteralPrefilter.of("\u00e9t\u00e9.+", 0));
+        assertEquals("ab", LiteralPrefilter.of("A B", Pattern.COMMENTS | Pattern.CASE_INSENSITIVE)
+                .getLiteral());
+    }
+
+    @Test
+    public void indexOf() {
+        LiteralPrefilter prefilter = LiteralPrefilter.of("abcab", 0);
+        String content = "xxabcabcabyyabcab";
+        for (CharSequence sequence : sequences(content)) {
+            assertEquals(2, prefilter.indexOf(sequence, 0));
+            assertEquals(5, prefilter.indexOf(sequence, 3));
+            assertEquals(12, prefilter.indexOf(sequence, 6));
+            assertEquals(-1, prefilter.indexOf(sequence, 13));
+        }
+        prefilter = LiteralPrefilter.of("KEY=", Pattern.CASE_INSENSITIVE);
+        for (CharSequence sequence : sequences("a kEy= \u212aey= \u014bey=")) {
+            assertEquals(2, prefilter.indexOf(sequence, 0));
+            assertEquals(-1, prefilter.indexOf(sequence, 3));
+        }
+    }
+
+    @Test
+    public void sameMatchesAsFind() {
+        String content = "<version>1.0</version>\n<VERSION>2.0</Version>\r\n<version></version>"
+                + "<version>3.0<version>4.0</version>\nname=a\nNAME=b\nkey=\u00e9\n";
+        String[] regexes = { "<version>(?P<V>.+?)</version>", "<version>(?P<V>[^<]*)",
+                "name=(?P<N>\\w+)$", "ey=(?P<K>.)", "</(?P<T>\\w+)>\\s*", "on>(?P<X>\\d)\\b" };
+        int[] flags = { 0, Pattern.CASE_INSENSITIVE, Pattern.MULTILINE,
+                Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL };
+        for (String regex : regexes) {
+            for (int flag : flags) {
+                assertSameMatches(regex, flag, content);
+            }
+        }
+    }
+
+    @Test
+    public void sameMatchesAsFindOnRandomContent() {
+        Random random = new Random(42);
+        String alphabet = "abAB=\n ";
+        String[] regexes = { "ab(?P<X>a*)", "ab=(?P<X>\\w+)", "ba+(?P<X>b?)", "a\\ b(?P<X>.)",
+                "aa(?P<X>.*?)bb" };
+        for (int i = 0; i < 500; i++) {
+            StringBuilder content = new StringBuilder();
+            int length = random.nextInt(200);
+            for (int j = 0; j < length; j++) {
+                content.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            for (String regex : regexes) {
+                assertSameMatches(regex, random.nextBoolean() ? 0 : Pattern.CASE_INSENSITIVE,
+                        content.toString());
+            }
+        }
+    }
+
+    @Test
+    public void matchesLongerThanTheRegion() {
+        StringBuilder content = new StringBuilder("head <v>");
+        for (int i = 0; i < LiteralPrefilter.MAX_MATCH_LENGTH + 10; i++) {
+            content.append((char) ('a' + i % 26));
+        }
+        content.append("</v> tail");
+        for (String regex : new String[] { "<v>(?P<V>.*)</v>", "<v>(?P<V>.*?)</v>",
+                "<v>(?P<V>[a-z]+)" }) {
+            NamedPattern pattern = NamedPattern.compile(regex);
+            Map<String, String> variables = LiteralPrefilter.of(regex, 0).collect(pattern,
+                    content.toString(), new MatchCollector(MatchMode.FIRST));
+            assertNotNull(regex, variables);
+            assertEquals(regex, LiteralPrefilter.MAX_MATCH_LENGTH + 10, variables.get("V")
+                    .length());
+        }
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static void assertPrefix(String expected, String regex) {
+        assertEquals(regex, expected, LiteralPrefilter.getLiteralPrefix(regex, false));
+    }
+
+    /**
+     * @return the content as a String, a heap CharBuffer with an offset and a position, and a
+     *         generic CharSequence.
+     */
+    private static CharSequence[] sequences(String content) {
+        char[] array = ("---" + content + "+++").toCharArray();
+        CharBuffer buffer = CharBuffer.wrap(array, 1, array.length - 2).slice();
+        buffer.position(2);
+        buffer.limit(2 + content.length());
+        return new CharSequence[] { content, buffer, new StringBuilder(content) };
+    }
+
+    private static void assertSameMatches(String regex, int flags, String content) {
+        NamedPattern pattern = NamedPattern.compile(regex, flags);
+        LiteralPrefilter prefilter = LiteralPrefilter.of(regex, flags);
+        assertNotNull(regex, prefilter);
+        Map<String, String> expected = new MatchCollector(MatchMode.ALL).collect(pattern
+                .matcher(content));
+        for (CharSequence sequence : sequences(content)) {
+            assertEquals("/" + regex + "/" + flags + " on " + sequence.getClass(), expected,
+                    prefilter.collect(pattern, sequence, new MatchCollector(MatchMode.ALL)));
+        }
+    }
+
+}
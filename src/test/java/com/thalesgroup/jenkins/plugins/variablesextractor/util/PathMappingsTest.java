@@ -0,0 +1,86 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class PathMappingsTest {
+
+    private static final PathMappings.Normalizer IDENTITY = new PathMappings.Normalizer() {
+
+        private static final long serialVersionUID = 1L;
+
+        public String normalize(String path) {
+            return path;
+        }
+    };
+
+    @Test
+    public void parse() {
+        PathMappings mappings = PathMappings.parse("# comment\r\n\n  A = /a  \nB=/b\nC = /a\n",
+                IDENTITY);
+        assertEquals(Arrays.asList("/a", "/b"), new ArrayList<String>(mappings.getPaths()));
+        assertEquals(2, mappings.size());
+        assertTrue(mappings.contains("/b"));
+    }
+
+    @Test
+    public void toVariables() {
+        PathMappings mappings = PathMappings.parse("A = /a\nB = /b\nC = /a\nB = /c\nD = /d",
+                IDENTITY);
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("/a", "1");
+        values.put("/b", "2");
+        values.put("/c", "3");
+        Map<String, String> variables = mappings.toVariables(values);
+        assertEquals(Arrays.asList("A", "B", "C"), new ArrayList<String>(variables.keySet()));
+        assertEquals("1", variables.get("C"));
+        assertEquals("3", variables.get("B"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingSeparator() {
+        PathMappings.parse("A /a", IDENTITY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingName() {
+        PathMappings.parse("= /a", IDENTITY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingPath() {
+        PathMappings.parse("A =", IDENTITY);
+    }
+
+}
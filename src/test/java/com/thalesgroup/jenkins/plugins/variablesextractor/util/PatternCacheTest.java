@@ -0,0 +1,69 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PatternCacheTest {
+
+    @Test
+    public void countsHitsAndMisses() {
+        PatternCache cache = new PatternCache(2);
+        cache.get("a", 0, RegexEngine.JAVA);
+        cache.get("a", 0, RegexEngine.JAVA);
+        cache.get("a", 0, RegexEngine.LINEAR);
+        cache.get("b", 0, RegexEngine.JAVA);
+        /* evicts the java "a" */
+        cache.get("a", 0, RegexEngine.JAVA);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    public void countsLookupsPerThread() throws InterruptedException {
+        final PatternCache cache = new PatternCache(10);
+        long[] before = PatternCache.getThreadLookups();
+        cache.get("a", 0, RegexEngine.JAVA);
+        Thread other = new Thread() {
+            @Override
+            public void run() {
+                cache.get("a", 0, RegexEngine.JAVA);
+                cache.get("b", 0, RegexEngine.JAVA);
+            }
+        };
+        other.start();
+        other.join();
+        cache.get("a", 0, RegexEngine.JAVA);
+        long[] after = PatternCache.getThreadLookups();
+        assertEquals(1, after[0] - before[0]);
+        assertEquals(1, after[1] - before[1]);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+}
@@ -0,0 +1,141 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class PropertiesReaderTest {
+
+    private static final String SYNTAX = "# comment\n"
+            + "! other comment\n"
+            + "\n"
+            + "   \t\n"
+            + "simple=value\n"
+            + "  spaces  =  value with spaces  \n"
+            + "colon:value\n"
+            + "white value\n"
+            + "empty=\n"
+            + "alone\n"
+            + "escaped\\ key\\=x=\\t\\n\\r\\f\\u0041\\\\\\q\n"
+            + "multi=first \\\n"
+            + "      second \\\n"
+            + "# not a comment\n"
+            + "even=ends with backslash\\\\\n"
+            + "crlf=value\r\n"
+            + "cr=value\rlast=\\u00e9t\\u00E9";
+
+    @Test
+    public void sameSyntaxAsProperties() throws IOException {
+        assertEquals(load(SYNTAX), read(SYNTAX));
+    }
+
+    @Test
+    public void keepsFileOrder() throws IOException {
+        assertEquals(Arrays.asList("c", "a", "b"), new ArrayList<String>(read("c=3\na=1\nb=2")
+                .keySet()));
+    }
+
+    @Test
+    public void filters() throws IOException {
+        String text = "BUILD_ID=1\nBUILD_NUMBER=2\nJOB=x\nOTHER=y\n";
+        Map<String, String> expected = new HashMap<String, String>();
+        expected.put("BUILD_ID", "1");
+        expected.put("BUILD_NUMBER", "2");
+        expected.put("OTHER", "y");
+        assertEquals(expected, read(text, "BUILD_*", "OTHER", "MISSING"));
+        assertEquals(Collections.singletonMap("JOB", "x"), read(text, "J?B"));
+    }
+
+    @Test
+    public void lastOccurrenceWinsWhenTheWholeFileIsRead() throws IOException {
+        String text = "A=1\nB=2\nA=3\nC=4\nB=5\n";
+        assertEquals("3", read(text).get("A"));
+        assertEquals("5", read(text).get("B"));
+        assertEquals("3", read(text, "?").get("A"));
+        assertEquals("5", read(text, "B*", "A").get("B"));
+        assertEquals("3", read(text, "B*", "A").get("A"));
+    }
+
+    @Test
+    public void firstOccurrenceWinsWithExactNames() throws IOException {
+        String text = "A=1\nB=2\nA=3\nC=4\nB=5\n";
+        assertEquals("1", read(text, "A").get("A"));
+        assertEquals("1", read(text, "A", "C").get("A"));
+        assertEquals("2", read(text, "A", "B", "C").get("B"));
+        /* D is never found so the whole file is read, the first occurrence still wins */
+        assertEquals("2", read(text, "B", "D").get("B"));
+    }
+
+    @Test
+    public void stopsOnceAllExactNamesAreFound() throws IOException {
+        String text = "A=1\nB=2\nbroken=\\u12\n";
+        Map<String, String> expected = new HashMap<String, String>();
+        expected.put("A", "1");
+        expected.put("B", "2");
+        assertEquals(expected, read(text, "A", "B"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedUnicodeEscape() throws IOException {
+        read("A=\\u12\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void signedUnicodeEscape() throws IOException {
+        read("A=\\u+041\n");
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static Map<String, String> read(String text, String... names) throws IOException {
+        return new PropertiesReader(new NameFilter(Arrays.asList(names))).read(new StringReader(
+                text));
+    }
+
+    private static Map<String, String> load(String text) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new StringReader(text));
+        Map<String, String> map = new HashMap<String, String>();
+        for (String name : properties.stringPropertyNames()) {
+            map.put(name, properties.getProperty(name));
+        }
+        return map;
+    }
+
+}
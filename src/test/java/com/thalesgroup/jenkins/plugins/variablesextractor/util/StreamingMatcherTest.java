@@ -0,0 +1,253 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.code.regexp.NamedPattern;
+
+public class StreamingMatcherTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Test
+    public void matchSplitAcrossWritesIsFoundBeforeTheEnd() throws IOException {
+        CountingPattern pattern = new CountingPattern("VERSION=(?P<V>\\d+)");
+        MatchingOutputStream out = newStream(pattern, MatchMode.FIRST);
+        write(out, "starting\n");
+        write(out, "VERS");
+        write(out, "ION=3");
+        assertFalse(out.isDone());
+        write(out, "4\n");
+        write(out, "compiling\n");
+        write(out, "testing\n");
+        assertTrue(out.isDone());
+        out.finish();
+        assertEquals("34", out.getMatcher().getCollector().getVariables().get("V"));
+    }
+
+    @Test
+    public void allMatchesOfSmallWrites() throws IOException {
+        CountingPattern pattern = new CountingPattern("VERSION=(?P<V>\\d+)");
+        MatchingOutputStream out = newStream(pattern, MatchMode.ALL);
+        for (int i = 0; i < 1000; i++) {
+            write(out, "line " + i + "\n");
+            if (i % 100 == 0) {
+                write(out, "VERSION=" + i + "\n");
+            }
+        }
+        out.finish();
+        Map<String, String> variables = out.getMatcher().getCollector().getVariables();
+        assertEquals("10", variables.get("V" + MatchCollector.COUNT_SUFFIX));
+        assertEquals("0", variables.get("V_0"));
+        assertEquals("900", variables.get("V_9"));
+    }
+
+    @Test
+    public void smallWritesWithoutMatchStayLinear() throws IOException {
+        CountingPattern pattern = new CountingPattern("VERSION=(?P<V>\\d+)");
+        MatchingOutputStream out = newStream(pattern, MatchMode.FIRST);
+        long length = 0;
+        for (int i = 0; i < 50000; i++) {
+            String line = "compiling module " + i + " of the build\n";
+            write(out, line);
+            length += line.length();
+        }
+        out.finish();
+        assertFalse(out.isDone());
+        assertLinear(pattern, length);
+    }
+
+    @Test
+    public void growingPartialMatchStaysLinear() throws IOException {
+        CountingPattern pattern = new CountingPattern("(?s)BEGIN(?P<BODY>.*)END");
+        MatchingOutputStream out = newStream(pattern, MatchMode.FIRST);
+        write(out, "BEGIN\n");
+        long length = 6;
+        for (int i = 0; i < 20000; i++) {
+            String line = "line " + i + "\n";
+            write(out, line);
+            length += line.length();
+        }
+        write(out, "END");
+        out.finish();
+        assertTrue(out.isDone());
+        assertEquals(length - 5, out.getMatcher().getCollector().getVariables().get("BODY")
+                .length());
+        assertLinear(pattern, length);
+    }
+
+    @Test
+    public void earlierPartialMatchWinsOverLaterMatch() {
+        NamedPattern pattern = NamedPattern.compile("(?P<X>A[^B]*B|C)");
+        StringBuilder text = new StringBuilder("xxA");
+        for (int i = 0; i < 300; i++) {
+            text.append('y');
+        }
+        text.append("Czzz");
+        for (int i = 0; i < 300; i++) {
+            text.append('y');
+        }
+        text.append("B end");
+        assertEquals(whole(pattern, text.toString(), MatchMode.FIRST), chunked(pattern,
+                text.toString(), 50, MatchMode.FIRST));
+        assertEquals("A", chunked(pattern, text.toString(), 50, MatchMode.FIRST).get("X")
+                .substring(0, 1));
+    }
+
+    @Test
+    public void chunkedMatchesEqualWholeMatches() {
+        String[] regexes = { "(?P<X>A[^B]*B|C)", "(?P<X>a+)", "(?P<X>a+?b)", "(?P<X>\\d+)",
+                "(?P<X>ab|abcd)", "(?m)^(?P<X>\\w+)=(?P<Y>.*)$", "(?P<X>x*)",
+                "(?s)<(?P<X>.*?)>", "(?P<X>[a-c]{2,5})(?P<Y>d?)" };
+        Random random = new Random(42);
+        String alphabet = "aabbcdABCxy=01\n<> ";
+        for (int round = 0; round < 200; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(2000);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            int chunk = 1 + random.nextInt(100);
+            for (String regex : regexes) {
+                NamedPattern pattern = NamedPattern.compile(regex);
+                for (MatchMode mode : MatchMode.values()) {
+                    assertEquals(regex + " on " + text + " in chunks of " + chunk,
+                            whole(pattern, text.toString(), mode),
+                            chunked(pattern, text.toString(), chunk, mode));
+                }
+            }
+        }
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static Map<String, String> whole(NamedPattern pattern, String text, MatchMode mode)
+    {
+        MatchCollector collector = new MatchCollector(mode);
+        PatternMatcher matcher = new JavaPattern(pattern).matcher(text);
+        int start = 0;
+        while (start <= text.length() && matcher.find(start)) {
+            if (collector.add(matcher.namedGroups())) {
+                break;
+            }
+            start = matcher.end() > matcher.start() ? matcher.end() : matcher.end() + 1;
+        }
+        return collector.getVariables();
+    }
+
+    /**
+     * Feeds <code>text</code> as a process output would, searching after every chunk.
+     */
+    private static Map<String, String> chunked(NamedPattern pattern, String text, int chunk,
+            MatchMode mode)
+    {
+        StreamingMatcher matcher = new StreamingMatcher(pattern,
+                StreamingMatcher.DEFAULT_WINDOW_SIZE, new MatchCollector(mode));
+        char[] chars = text.toCharArray();
+        for (int off = 0; off < chars.length && !matcher.isDone(); off += chunk) {
+            matcher.feed(chars, off, Math.min(chunk, chars.length - off));
+            matcher.flush();
+        }
+        matcher.finish();
+        return matcher.getCollector().getVariables();
+    }
+
+    private static MatchingOutputStream newStream(CompiledPattern pattern, MatchMode mode) {
+        return new MatchingOutputStream(new ByteArrayOutputStream(), new StreamingMatcher(
+                pattern, StreamingMatcher.DEFAULT_WINDOW_SIZE, new MatchCollector(mode)), UTF8);
+    }
+
+    private static void write(MatchingOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(UTF8);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * A single pass reads each char a few times (backtracking, group extraction). Searching the
+     * whole window again on every write reads it thousands of times.
+     */
+    private static void assertLinear(CountingPattern pattern, long length) {
+        assertTrue(pattern.reads + " chars read for " + length + " chars of input",
+                pattern.reads < 20 * length);
+    }
+
+    /**
+     * Counts the chars read by the matchers.
+     */
+    private static class CountingPattern implements CompiledPattern {
+
+        private final JavaPattern pattern;
+        private long reads = 0;
+
+        public CountingPattern(String regex) {
+            this.pattern = new JavaPattern(NamedPattern.compile(regex));
+        }
+
+        public PatternMatcher matcher(final CharSequence input) {
+            return pattern.matcher(new CountingSequence(input));
+        }
+
+        private class CountingSequence implements CharSequence {
+
+            private final CharSequence sequence;
+
+            public CountingSequence(CharSequence sequence) {
+                this.sequence = sequence;
+            }
+
+            public int length() {
+                return sequence.length();
+            }
+
+            public char charAt(int index) {
+                reads++;
+                return sequence.charAt(index);
+            }
+
+            public CharSequence subSequence(int start, int end) {
+                return sequence.subSequence(start, end);
+            }
+
+            @Override
+            public String toString() {
+                return sequence.toString();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class VariablesCodecTest {
+
+    @Test
+    public void roundTripOfSpecialChars() {
+        Map<String, String> variables = new LinkedHashMap<String, String>();
+        variables.put("PLAIN", "value");
+        variables.put("KEY=WITH=EQUALS", "a=b=c");
+        variables.put("BACK\\SLASH", "C:\\dir\\");
+        variables.put("NEW\nLINE", "line 1\nline 2\r\nline 3\r");
+        variables.put("TRAILING\\", "\\");
+        variables.put("EMPTY", "");
+        variables.put("", "empty key");
+        assertRoundTrip(variables);
+    }
+
+    @Test
+    public void nullValuesAreDropped() {
+        Map<String, String> variables = new LinkedHashMap<String, String>();
+        variables.put("A", null);
+        variables.put("B", "b");
+        Map<String, String> decoded = VariablesCodec.decode(VariablesCodec.encode(variables));
+        assertEquals(1, decoded.size());
+        assertEquals("b", decoded.get("B"));
+    }
+
+    @Test
+    public void emptyVariables() {
+        String encoded = VariablesCodec.encode(new LinkedHashMap<String, String>());
+        assertEquals(VariablesCodec.PLAIN_PREFIX, encoded);
+        assertSame(VariablesMap.EMPTY, VariablesCodec.decode(encoded));
+    }
+
+    @Test
+    public void keysLookingLikeAFormat() {
+        Map<String, String> variables = new LinkedHashMap<String, String>();
+        variables.put("gzip:level", "9");
+        variables.put("plain:text", "x");
+        assertRoundTrip(variables);
+        variables.remove("plain:text");
+        assertRoundTrip(variables);
+        variables.clear();
+        variables.put("plain:text", "x");
+        assertRoundTrip(variables);
+    }
+
+    @Test
+    public void compressionThreshold() {
+        /* "K=" + value + "\n" */
+        Map<String, String> variables = new LinkedHashMap<String, String>();
+        variables.put("K", repeat('x', VariablesCodec.COMPRESSION_THRESHOLD - 3));
+        String encoded = VariablesCodec.encode(variables);
+        assertFalse(encoded.startsWith(VariablesCodec.GZIP_PREFIX));
+        assertEquals(VariablesCodec.PLAIN_PREFIX.length() + VariablesCodec.COMPRESSION_THRESHOLD,
+                encoded.length());
+        assertRoundTrip(variables);
+
+        variables.put("K", repeat('x', VariablesCodec.COMPRESSION_THRESHOLD - 2));
+        assertTrue(VariablesCodec.encode(variables).startsWith(VariablesCodec.GZIP_PREFIX));
+        assertRoundTrip(variables);
+    }
+
+    @Test
+    public void roundTripOfLargeCompressedText() {
+        Map<String, String> variables = new LinkedHashMap<String, String>();
+        for (int i = 0; i < 20000; i++) {
+            variables.put("VARIABLE_" + i, "value \u00e9\u4e2d " + i + (i % 1000 == 0
+                    ? "\\with\nescapes" : ""));
+        }
+        String encoded = VariablesCodec.encode(variables);
+        assertTrue(encoded.startsWith(VariablesCodec.GZIP_PREFIX));
+        assertRoundTrip(variables);
+    }
+
+    @Test
+    public void decodedStringsAreShared() {
+        Map<String, String> variables = new LinkedHashMap<String, String>();
+        variables.put("SHARED_KEY", "shared value");
+        String encoded = VariablesCodec.encode(variables);
+        Map.Entry<String, String> first = VariablesCodec.decode(encoded).entrySet().iterator()
+                .next();
+        Map.Entry<String, String> second = VariablesCodec.decode(encoded).entrySet()
+                .iterator().next();
+        assertSame(first.getKey(), second.getKey());
+        assertSame(first.getValue(), second.getValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedText() {
+        VariablesCodec.decode(VariablesCodec.PLAIN_PREFIX + "NO_SEPARATOR\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFormat() {
+        VariablesCodec.decode("gzip_level=9\n");
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static void assertRoundTrip(Map<String, String> variables) {
+        VariablesMap decoded = VariablesCodec.decode(VariablesCodec.encode(variables));
+        assertEquals(variables, decoded);
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+}
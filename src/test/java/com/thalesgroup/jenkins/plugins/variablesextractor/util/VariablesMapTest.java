@@ -0,0 +1,93 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Test;
+
+public class VariablesMapTest {
+
+    @Test
+    public void copyIsSortedAndDropsNullValues() {
+        Map<String, String> variables = new HashMap<String, String>();
+        variables.put("C", "3");
+        variables.put("A", "1");
+        variables.put("B", null);
+        variables.put("D", "4");
+        VariablesMap map = VariablesMap.copyOf(variables);
+        assertEquals(3, map.size());
+        List<String> keys = new ArrayList<String>();
+        for (Entry<String, String> entry : map.entrySet()) {
+            keys.add(entry.getKey());
+        }
+        assertEquals(Arrays.asList("A", "C", "D"), keys);
+        assertEquals("3", map.get("C"));
+        assertNull(map.get("B"));
+        assertFalse(map.containsKey("B"));
+        assertTrue(map.containsKey("D"));
+        assertNull(map.get(Integer.valueOf(1)));
+    }
+
+    @Test
+    public void equalToTheSourceMap() {
+        Map<String, String> variables = new HashMap<String, String>();
+        for (int i = 0; i < 100; i++) {
+            variables.put("KEY_" + i, "value " + i);
+        }
+        VariablesMap map = VariablesMap.copyOf(variables);
+        assertEquals(variables, map);
+        assertEquals(map, variables);
+        assertEquals(variables.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void copyOfACopyIsTheSameInstance() {
+        Map<String, String> variables = new HashMap<String, String>();
+        variables.put("A", "1");
+        VariablesMap map = VariablesMap.copyOf(variables);
+        assertSame(map, VariablesMap.copyOf(map));
+        assertSame(VariablesMap.EMPTY, VariablesMap.copyOf(new HashMap<String, String>()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutable() {
+        Map<String, String> variables = new HashMap<String, String>();
+        variables.put("A", "1");
+        VariablesMap.copyOf(variables).put("B", "2");
+    }
+
+}
@@ -0,0 +1,153 @@
+/************************************************************************************
+ * Copyright (c) 2004-2011,  Thales Corporate Services SAS                          *
+ * Author: Robin Jarry                                                              *
+ *                                                                                  *
+ * The MIT License                                                                  *
+ *                                                                                  *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy     *
+ * of this software and associated documentation files (the "Software"), to deal    *
+ * in the Software without restriction, including without limitation the rights     *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell        *
+ * copies of the Software, and to permit persons to whom the Software is            *
+ * furnished to do so, subject to the following conditions:                         *
+ *                                                                                  *
+ * The above copyright notice and this permission notice shall be included in       *
+ * all copies or substantial portions of the Software.                              *
+ *                                                                                  *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR       *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,         *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE      *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER           *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,    *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN        *
+ * THE SOFTWARE.                                                                    *
+ ************************************************************************************/
+package com.thalesgroup.jenkins.plugins.variablesextractor.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class XmlPathReaderTest {
+
+    private static final String POM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\" xmlns:x=\"urn:x\">\n"
+            + "  <version> 1.0\u00e9 </version>\n"
+            + "  <name>own <!-- comment --> text<child>not included</child> only</name>\n"
+            + "  <description><![CDATA[<cdata> & text]]></description>\n"
+            + "  <x:ns>prefixed</x:ns>\n"
+            + "  <build>\n"
+            + "    <plugin id=\"first\"><version>2.0</version></plugin>\n"
+            + "    <plugin id=\"second\"><version>3.0</version></plugin>\n"
+            + "  </build>\n"
+            + "  <version>duplicate</version>\n"
+            + "</project>\n";
+
+    @Test
+    public void normalize() {
+        assertEquals("/project/version", XmlPathReader.normalize("project/version/"));
+        assertEquals("/project/version", XmlPathReader.normalize(" /pom:project/pom:version "));
+        assertEquals("/a/@id", XmlPathReader.normalize("/a/@x:id"));
+        assertUnsupported("/a/@id/b");
+        assertUnsupported("/a[1]");
+        assertUnsupported("//a");
+        assertUnsupported("/a/*");
+        assertUnsupported("/a/@");
+    }
+
+    @Test
+    public void values() throws IOException {
+        Map<String, String> variables = read(POM, "VERSION = /project/version",
+                "NAME = /project/name", "DESCRIPTION = /project/description",
+                "NS = /project/ns", "PLUGIN = /project/build/plugin/@id",
+                "PLUGIN_VERSION = /project/build/plugin/version", "NONE = /project/none",
+                "ROOT = /version");
+        assertEquals("1.0\u00e9", variables.get("VERSION"));
+        assertEquals("own  text only", variables.get("NAME"));
+        assertEquals("<cdata> & text", variables.get("DESCRIPTION"));
+        assertEquals("prefixed", variables.get("NS"));
+        assertEquals("first", variables.get("PLUGIN"));
+        assertEquals("2.0", variables.get("PLUGIN_VERSION"));
+        assertFalse(variables.containsKey("NONE"));
+        assertFalse(variables.containsKey("ROOT"));
+    }
+
+    @Test
+    public void nestedPaths() throws IOException {
+        String xml = "<a><b>outer<c>inner</c> text<c>second</c></b><b><c>other</c><d>d</d></b></a>";
+        Map<String, String> variables = read(xml, "B = /a/b", "C = /a/b/c", "D = /a/b/d");
+        assertEquals("outer text", variables.get("B"));
+        assertEquals("inner", variables.get("C"));
+        assertEquals("d", variables.get("D"));
+    }
+
+    @Test
+    public void stopsOnceAllPathsAreResolved() throws IOException {
+        assertEquals("1", read("<a><b>1</b><c><unclosed></c>", "B = /a/b").get("B"));
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidDocument() throws IOException {
+        read("<a><b>1</c></a>", "B = /a/b");
+    }
+
+    @Test
+    public void externalEntitiesAreNotLoaded() throws IOException {
+        File secret = File.createTempFile("secret", ".txt");
+        try {
+            OutputStream out = new FileOutputStream(secret);
+            try {
+                out.write("SECRET".getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+            String xml = "<?xml version=\"1.0\"?>\n<!DOCTYPE a [ <!ENTITY e SYSTEM \""
+                    + secret.toURI() + "\"> ]>\n<a><b>&e;</b></a>";
+            try {
+                Map<String, String> variables = read(xml, "B = /a/b");
+                assertFalse(String.valueOf(variables.get("B")).contains("SECRET"));
+            } catch (IOException e) {
+                assertTrue(e.getMessage().startsWith("Invalid XML"));
+            }
+        } finally {
+            secret.delete();
+        }
+    }
+
+    /***********
+     * PRIVATE *
+     ***********/
+
+    private static Map<String, String> read(String document, String... mappings)
+            throws IOException
+    {
+        StringBuilder text = new StringBuilder();
+        for (String mapping : mappings) {
+            text.append(mapping).append('\n');
+        }
+        PathMappings pathMappings = PathMappings.parse(text.toString(),
+                XmlPathReader.NORMALIZER);
+        return pathMappings.toVariables(new XmlPathReader(pathMappings).read(
+                new ByteArrayInputStream(document.getBytes("UTF-8"))));
+    }
+
+    private static void assertUnsupported(String path) {
+        try {
+            XmlPathReader.normalize(path);
+            fail("accepted: " + path);
+        } catch (IllegalArgumentException e) {
+            /* expected */
+        }
+    }
+
+}